@@ -0,0 +1,51 @@
+package mayhem;
+
+// Allocation-free axis-aligned box tests on plain int coordinates
+public final class Aabb {
+    private Aabb() {
+    }
+
+    // Same test as Rectangle.intersects, without allocating rectangles
+    public static boolean intersects(int ax, int ay, int aw, int ah, int bx, int by, int bw, int bh) {
+        return ax < bx + bw && bx < ax + aw && ay < by + bh && by < ay + ah;
+    }
+
+    // Whether two moving boxes overlapped at any moment of a tick. Positions are where they
+    // ended the tick and (avx, avy), (bvx, bvy) how far each moved during it. At the end of
+    // the tick this is intersects(), so it only adds the hits of boxes fast enough to pass
+    // through each other between two ticks.
+    public static boolean swept(int ax, int ay, int aw, int ah, int avx, int avy,
+                                int bx, int by, int bw, int bh, int bvx, int bvy) {
+        // Boxes around each one's whole path that don't meet rule out most pairs cheaply
+        if (!intersects(ax - Math.max(avx, 0), ay - Math.max(avy, 0), aw + Math.abs(avx), ah + Math.abs(avy),
+                bx - Math.max(bvx, 0), by - Math.max(bvy, 0), bw + Math.abs(bvx), bh + Math.abs(bvy))) {
+            return false;
+        }
+        // Hold B still: A then moves by (dx, dy), ending at (ax, ay). Intersect the times
+        // t in [0, 1] at which A overlaps B on each axis.
+        long dx = (long) avx - bvx, dy = (long) avy - bvy;
+        double enter = 0, exit = 1;
+        if (dx == 0) {
+            if (!(ax < (long) bx + bw && bx < (long) ax + aw)) {
+                return false;
+            }
+        } else {
+            double t1 = 1 + ((long) bx - aw - ax) / (double) dx;
+            double t2 = 1 + ((long) bx + bw - ax) / (double) dx;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        if (dy == 0) {
+            if (!(ay < (long) by + bh && by < (long) ay + ah)) {
+                return false;
+            }
+        } else {
+            double t1 = 1 + ((long) by - ah - ay) / (double) dy;
+            double t2 = 1 + ((long) by + bh - ay) / (double) dy;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        // The overlaps are open intervals, so boxes only touching edges don't count, as in intersects()
+        return enter < exit;
+    }
+}
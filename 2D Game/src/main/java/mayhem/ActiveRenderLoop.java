@@ -0,0 +1,115 @@
+package mayhem;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.lang.reflect.Constructor;
+import java.util.concurrent.locks.LockSupport;
+
+// Active rendering: a dedicated thread runs the simulation ticks and draws each frame
+// straight into the frame's BufferStrategy, instead of waiting for Swing to honour
+// repaint(). Frames are paced to a cap (sleep, then spin for the last stretch) and
+// rendered with the interpolation factor from the fixed-step clock.
+public class ActiveRenderLoop implements Runnable {
+    private static final long SPIN_NANOS = 1_000_000L; // Busy-wait the last millisecond for accuracy
+
+    private final Window window;
+    private final MothershipMayhemGame game;
+    private final boolean vsync;
+    private final long frameNanos; // 0 = uncapped
+    private volatile boolean running = false;
+    private Thread thread;
+    private BufferStrategy strategy;
+
+    public ActiveRenderLoop(Window window, MothershipMayhemGame game, boolean vsync, int fpsCap) {
+        this.window = window;
+        this.game = game;
+        this.vsync = vsync;
+        this.frameNanos = fpsCap > 0 ? 1_000_000_000L / fpsCap : 0;
+    }
+
+    // Must be called on the EDT once the window is displayable
+    public void start() {
+        window.setIgnoreRepaint(true);
+        strategy = createStrategy();
+        running = true;
+        thread = new Thread(this, "Render loop");
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        long nextFrame = System.nanoTime();
+        while (running) {
+            long now = System.nanoTime();
+            game.update(now);
+            renderFrame(game.getInterpolation());
+
+            if (frameNanos > 0) {
+                nextFrame += frameNanos;
+                if (nextFrame < System.nanoTime() - frameNanos) {
+                    nextFrame = System.nanoTime(); // Fell far behind: don't try to catch up
+                }
+                waitUntil(nextFrame);
+            } else if (!vsync) {
+                Thread.yield();
+            }
+        }
+    }
+
+    private void renderFrame(float alpha) {
+        // Both loops are needed: the back buffer can be restored or lost while drawing
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    game.render(g, alpha);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync(); // Flush the pipeline so the frame shows now (X11)
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > SPIN_NANOS) {
+            LockSupport.parkNanos(remaining - SPIN_NANOS);
+        }
+        while (deadline - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private BufferStrategy createStrategy() {
+        if (vsync && createVsyncStrategy()) {
+            return window.getBufferStrategy();
+        }
+        window.createBufferStrategy(2);
+        return window.getBufferStrategy();
+    }
+
+    // There is no public vsync switch in Java2D; the JDK-internal flip capabilities
+    // enable it where the pipeline supports it (needs --add-exports java.desktop/sun.java2d.pipe.hw=ALL-UNNAMED)
+    private boolean createVsyncStrategy() {
+        try {
+            Class<?> extended = Class.forName("sun.java2d.pipe.hw.ExtendedBufferCapabilities");
+            Class<?> vsyncType = Class.forName("sun.java2d.pipe.hw.ExtendedBufferCapabilities$VSyncType");
+            Object vsyncOn = vsyncType.getField("VSYNC_ON").get(null);
+            Constructor<?> ctor = extended.getConstructor(BufferCapabilities.class, vsyncType);
+            BufferCapabilities flip = new BufferCapabilities(new ImageCapabilities(true), new ImageCapabilities(true),
+                    BufferCapabilities.FlipContents.UNDEFINED);
+            window.createBufferStrategy(2, (BufferCapabilities) ctor.newInstance(flip, vsyncOn));
+            return true;
+        } catch (Exception | LinkageError e) {
+            System.err.println("VSync not available, using an unsynchronised buffer strategy: " + e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package mayhem;
+
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+// A decoded animation: every frame as a full image plus how many simulation ticks it is
+// shown for. GIFs are decoded once, up front, with each frame composited the way a
+// browser would, so drawing only needs frameAt(tick) and nothing runs on the toolkit's
+// animation clock. A still image is a one-frame animation.
+public final class Animation {
+    private static final int DEFAULT_DELAY_CENTIS = 10; // What browsers use for a 0 or 1 delay
+
+    private final BufferedImage[] frames;
+    private final int[] frameAtTick; // Frame shown on each tick of one loop
+
+    private Animation(BufferedImage[] frames, int[] delayCentis) {
+        this.frames = frames;
+        int[] ticks = new int[frames.length];
+        int duration = 0;
+        for (int i = 0; i < frames.length; i++) {
+            int centis = delayCentis[i] > 1 ? delayCentis[i] : DEFAULT_DELAY_CENTIS;
+            ticks[i] = Math.max(1, Math.round(centis * GameSimulation.TICKS_PER_SECOND / 100f));
+            duration += ticks[i];
+        }
+        frameAtTick = new int[duration];
+        for (int i = 0, t = 0; i < frames.length; i++) {
+            for (int k = 0; k < ticks[i]; k++) {
+                frameAtTick[t++] = i;
+            }
+        }
+    }
+
+    public static Animation still(BufferedImage image) {
+        return new Animation(new BufferedImage[]{image}, new int[]{0});
+    }
+
+    public static Animation read(File file) throws IOException {
+        if (file.getName().toLowerCase().endsWith(".gif")) {
+            return decodeGif(file);
+        }
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+            throw new IOException("Unsupported image: " + file);
+        }
+        return still(image);
+    }
+
+    // Frame to show at a simulation tick; the animation loops
+    public int frameAt(long tick) {
+        return frameAtTick[(int) Math.floorMod(tick, (long) frameAtTick.length)];
+    }
+
+    public BufferedImage frame(int i) {
+        return frames[i];
+    }
+
+    public int frameCount() {
+        return frames.length;
+    }
+
+    // Length of one loop in ticks
+    public int duration() {
+        return frameAtTick.length;
+    }
+
+    private static Animation decodeGif(File file) throws IOException {
+        if (!file.isFile()) {
+            throw new IOException("Missing image: " + file);
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("gif");
+        if (!readers.hasNext()) {
+            throw new IOException("No GIF decoder");
+        }
+        ImageReader reader = readers.next();
+        try (ImageInputStream in = ImageIO.createImageInputStream(file)) {
+            reader.setInput(in, false);
+            int width = 0, height = 0;
+            IIOMetadata stream = reader.getStreamMetadata();
+            if (stream != null) {
+                Node screen = child(stream.getAsTree("javax_imageio_gif_stream_1.0"), "LogicalScreenDescriptor");
+                width = intAttribute(screen, "logicalScreenWidth", 0);
+                height = intAttribute(screen, "logicalScreenHeight", 0);
+            }
+
+            int count = reader.getNumImages(true);
+            BufferedImage[] frames = new BufferedImage[count];
+            int[] delays = new int[count];
+            BufferedImage canvas = null;
+            for (int i = 0; i < count; i++) {
+                BufferedImage frame = reader.read(i);
+                Node metadata = reader.getImageMetadata(i).getAsTree("javax_imageio_gif_image_1.0");
+                Node descriptor = child(metadata, "ImageDescriptor");
+                Node control = child(metadata, "GraphicControlExtension");
+                int left = intAttribute(descriptor, "imageLeftPosition", 0);
+                int top = intAttribute(descriptor, "imageTopPosition", 0);
+                delays[i] = intAttribute(control, "delayTime", 0);
+                String disposal = attribute(control, "disposalMethod", "none");
+
+                if (canvas == null) {
+                    canvas = new BufferedImage(width > 0 ? width : left + frame.getWidth(),
+                            height > 0 ? height : top + frame.getHeight(), BufferedImage.TYPE_INT_ARGB);
+                }
+                BufferedImage previous = disposal.equals("restoreToPrevious") ? copy(canvas) : null;
+                Graphics2D g = canvas.createGraphics();
+                g.drawImage(frame, left, top, null);
+                frames[i] = copy(canvas);
+
+                // Clear what this frame asks for before the next one is drawn over it
+                if (disposal.equals("restoreToBackgroundColor")) {
+                    g.setComposite(AlphaComposite.Clear);
+                    g.fillRect(left, top, frame.getWidth(), frame.getHeight());
+                } else if (previous != null) {
+                    canvas = previous;
+                }
+                g.dispose();
+            }
+            if (count == 0) {
+                throw new IOException("No frames in " + file);
+            }
+            return new Animation(frames, delays);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = copy.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return copy;
+    }
+
+    private static Node child(Node parent, String name) {
+        for (Node n = parent.getFirstChild(); n != null; n = n.getNextSibling()) {
+            if (n.getNodeName().equals(name)) {
+                return n;
+            }
+        }
+        return null;
+    }
+
+    private static String attribute(Node node, String name, String defaultValue) {
+        if (node == null) {
+            return defaultValue;
+        }
+        NamedNodeMap attributes = node.getAttributes();
+        Node value = attributes != null ? attributes.getNamedItem(name) : null;
+        return value != null ? value.getNodeValue() : defaultValue;
+    }
+
+    private static int intAttribute(Node node, String name, int defaultValue) {
+        String value = attribute(node, name, null);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+}
@@ -0,0 +1,84 @@
+package mayhem;
+
+import java.io.File;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Loads and decodes images and sounds in parallel on background threads, and keeps every
+// decoded asset for the lifetime of the process: asking for the same path again (e.g. on
+// restart) returns the cached result without touching the disk.
+public final class AssetManager {
+    private static final AssetManager INSTANCE = new AssetManager();
+
+    private final ExecutorService pool;
+    private final ConcurrentHashMap<String, CompletableFuture<?>> cache = new ConcurrentHashMap<>();
+    private final AtomicInteger requested = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private volatile long firstRequestNanos = 0;
+    private volatile long lastCompletedNanos = 0;
+
+    private AssetManager() {
+        AtomicInteger threadCount = new AtomicInteger();
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "Asset loader " + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static AssetManager get() {
+        return INSTANCE;
+    }
+
+    // Fully decoded image; every frame of an animated GIF is decoded up front
+    public CompletableFuture<Animation> image(String path) {
+        return load("image:" + path, () -> Animation.read(new File(path)));
+    }
+
+    // Whole sound decoded to interleaved 16-bit stereo samples in the mixer format
+    public CompletableFuture<short[]> sound(String path) {
+        return load("sound:" + path, () -> AudioMixer.decode(new File(path)));
+    }
+
+    // Load any other asset once under a unique key
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> load(String key, Callable<T> loader) {
+        return (CompletableFuture<T>) cache.computeIfAbsent(key, k -> {
+            if (requested.getAndIncrement() == 0) {
+                firstRequestNanos = System.nanoTime();
+            }
+            CompletableFuture<T> future = new CompletableFuture<>();
+            pool.execute(() -> {
+                try {
+                    future.complete(loader.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(new CompletionException("Failed to load " + key, e));
+                } finally {
+                    lastCompletedNanos = System.nanoTime();
+                    completed.incrementAndGet();
+                }
+            });
+            return future;
+        });
+    }
+
+    // Fraction of requested assets finished loading (failed ones included)
+    public float progress() {
+        int total = requested.get();
+        return total == 0 ? 1f : (float) completed.get() / total;
+    }
+
+    public boolean isDone() {
+        return completed.get() == requested.get();
+    }
+
+    public int getRequestedCount() {
+        return requested.get();
+    }
+
+    // Wall time from the first request until the last asset finished
+    public long getLoadMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastCompletedNanos - firstRequestNanos);
+    }
+}
@@ -0,0 +1,279 @@
+package mayhem;
+
+import javax.sound.sampled.*;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Software mixer for sound effects. Every effect is decoded to 16-bit PCM once; a
+// dedicated thread mixes up to N voices into a single SourceDataLine in small blocks.
+// trigger() only drops a request into a lock-free queue, so it never blocks the game
+// loop; when every voice is busy the oldest one is stolen. mix() can also be called
+// directly to render into a byte buffer without any audio device.
+public class AudioMixer implements Runnable {
+    public static final AudioFormat FORMAT = new AudioFormat(44100f, 16, 2, true, false);
+    private static final int CHANNELS = 2;
+    private static final int FRAME_BYTES = 4;
+
+    // Decoded effects, interleaved stereo samples
+    private short[][] sounds = new short[8][];
+    private int soundCount = 0;
+
+    // Voices; only touched by the mixing thread
+    private final int[] voiceSound;
+    private final int[] voicePosition; // Next sample index, -1 when idle
+    private final float[] voiceGain;
+    private final long[] voiceStarted; // Trigger order, for stealing the oldest voice
+    private long voiceCounter = 0;
+    private int[] mixBuffer = new int[0];
+    private volatile float masterGain = 1f;
+
+    // Bounded multi-producer / single-consumer trigger queue (sequence-numbered slots)
+    private final int queueMask;
+    private final AtomicLongArray slotSequence;
+    private final int[] queuedSound;
+    private final float[] queuedGain;
+    private final AtomicLong tail = new AtomicLong(); // Next slot to claim (producers)
+    private long head = 0; // Next slot to read (mixing thread)
+    private final AtomicLong droppedTriggers = new AtomicLong();
+    private final AtomicLong stolenVoices = new AtomicLong();
+
+    private final int blockFrames;
+    private SourceDataLine line;
+    private Thread thread;
+    private volatile boolean running = false;
+    private volatile Runnable feeder = null;
+
+    public AudioMixer(int voices, int blockFrames) {
+        this.blockFrames = blockFrames;
+        voiceSound = new int[voices];
+        voicePosition = new int[voices];
+        voiceGain = new float[voices];
+        voiceStarted = new long[voices];
+        Arrays.fill(voicePosition, -1);
+
+        int queueSize = Integer.highestOneBit(Math.max(16, voices * 4) * 2 - 1);
+        queueMask = queueSize - 1;
+        slotSequence = new AtomicLongArray(queueSize);
+        queuedSound = new int[queueSize];
+        queuedGain = new float[queueSize];
+        for (int i = 0; i < queueSize; i++) {
+            slotSequence.set(i, i);
+        }
+    }
+
+    // Decode a WAV file into the mixer format and return its id for trigger(); call before start()
+    public int load(File file) throws IOException, UnsupportedAudioFileException {
+        return add(decode(file));
+    }
+
+    public int add(short[] pcm) {
+        if (soundCount == sounds.length) {
+            sounds = Arrays.copyOf(sounds, soundCount * 2);
+        }
+        sounds[soundCount] = pcm;
+        return soundCount++;
+    }
+
+    // Read a whole file as interleaved 16-bit stereo samples in FORMAT
+    public static short[] decode(File file) throws IOException, UnsupportedAudioFileException {
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(file);
+             AudioInputStream pcm = toMixerFormat(source)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] chunk = new byte[16384];
+            int n;
+            while ((n = pcm.read(chunk)) > 0) {
+                bytes.write(chunk, 0, n);
+            }
+            byte[] data = bytes.toByteArray();
+            short[] samples = new short[data.length / 2];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = (short) ((data[2 * i] & 0xff) | (data[2 * i + 1] << 8));
+            }
+            return samples;
+        }
+    }
+
+    static AudioInputStream toMixerFormat(AudioInputStream source) {
+        AudioFormat format = source.getFormat();
+        if (format.matches(FORMAT)) {
+            return source;
+        }
+        // Go through 16-bit PCM at the source rate and channel count first
+        AudioFormat pcm = new AudioFormat(format.getSampleRate(), 16, format.getChannels(), true, false);
+        AudioInputStream stream = format.matches(pcm) ? source : AudioSystem.getAudioInputStream(pcm, source);
+        return AudioSystem.getAudioInputStream(FORMAT, stream);
+    }
+
+    // Open the default output line and start the mixing thread
+    public void start() throws LineUnavailableException {
+        int blockBytes = blockFrames * FRAME_BYTES;
+        line = AudioSystem.getSourceDataLine(FORMAT);
+        line.open(FORMAT, blockBytes * 4); // A few blocks of latency at most
+        line.start();
+        running = true;
+        thread = new Thread(this, "Audio mixer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    public void close() {
+        running = false;
+        if (thread != null) {
+            try {
+                thread.join(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (line != null) {
+            line.stop();
+            line.close();
+        }
+    }
+
+    @Override
+    public void run() {
+        byte[] block = new byte[blockFrames * FRAME_BYTES];
+        while (running) {
+            Runnable f = feeder;
+            if (f != null) {
+                f.run();
+            }
+            mix(block, 0, blockFrames);
+            line.write(block, 0, block.length); // Blocks until the line has room, pacing the thread
+        }
+    }
+
+    // Run on the mixing thread before every block, e.g. to trigger effects from events it
+    // reads itself; anything it triggers is heard in that block
+    public void setFeeder(Runnable feeder) {
+        this.feeder = feeder;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Queue an effect to start on the next mixed block; returns false if the queue was full
+    public boolean trigger(int sound, float gain) {
+        long slot;
+        while (true) {
+            slot = tail.get();
+            int index = (int) slot & queueMask;
+            long sequence = slotSequence.get(index);
+            if (sequence == slot) {
+                if (tail.compareAndSet(slot, slot + 1)) {
+                    queuedSound[index] = sound;
+                    queuedGain[index] = gain;
+                    slotSequence.set(index, slot + 1); // Publish to the mixing thread
+                    return true;
+                }
+            } else if (sequence < slot) {
+                droppedTriggers.incrementAndGet(); // Full: drop rather than wait
+                return false;
+            }
+            // Another producer claimed this slot first; retry with the new tail
+        }
+    }
+
+    // Render frames of mixed audio into out, in FORMAT
+    public void mix(byte[] out, int offset, int frames) {
+        drainTriggers();
+
+        int samples = frames * CHANNELS;
+        if (mixBuffer.length < samples) {
+            mixBuffer = new int[samples];
+        }
+        int[] acc = mixBuffer;
+        Arrays.fill(acc, 0, samples, 0);
+
+        for (int v = 0; v < voicePosition.length; v++) {
+            int pos = voicePosition[v];
+            if (pos < 0) {
+                continue;
+            }
+            short[] pcm = sounds[voiceSound[v]];
+            int count = Math.min(samples, pcm.length - pos);
+            float gain = voiceGain[v];
+            for (int i = 0; i < count; i++) {
+                acc[i] += (int) (pcm[pos + i] * gain);
+            }
+            pos += count;
+            voicePosition[v] = pos >= pcm.length ? -1 : pos;
+        }
+
+        float master = masterGain;
+        for (int i = 0; i < samples; i++) {
+            int sample = (int) (acc[i] * master);
+            if (sample > Short.MAX_VALUE) {
+                sample = Short.MAX_VALUE;
+            } else if (sample < Short.MIN_VALUE) {
+                sample = Short.MIN_VALUE;
+            }
+            out[offset + 2 * i] = (byte) sample;
+            out[offset + 2 * i + 1] = (byte) (sample >> 8);
+        }
+    }
+
+    private void drainTriggers() {
+        while (true) {
+            int index = (int) head & queueMask;
+            if (slotSequence.get(index) != head + 1) {
+                return; // Nothing published yet
+            }
+            startVoice(queuedSound[index], queuedGain[index]);
+            slotSequence.set(index, head + queueMask + 1); // Hand the slot back to producers
+            head++;
+        }
+    }
+
+    private void startVoice(int sound, float gain) {
+        if (sound < 0 || sound >= soundCount) {
+            return;
+        }
+        int voice = -1;
+        for (int v = 0; v < voicePosition.length; v++) {
+            if (voicePosition[v] < 0) {
+                voice = v;
+                break;
+            }
+            if (voice < 0 || voiceStarted[v] < voiceStarted[voice]) {
+                voice = v;
+            }
+        }
+        if (voicePosition[voice] >= 0) {
+            stolenVoices.incrementAndGet(); // All busy: the oldest voice is cut off
+        }
+        voiceSound[voice] = sound;
+        voicePosition[voice] = 0;
+        voiceGain[voice] = gain;
+        voiceStarted[voice] = voiceCounter++;
+    }
+
+    public void setMasterGain(float gain) {
+        masterGain = gain;
+    }
+
+    public long getDroppedTriggers() {
+        return droppedTriggers.get();
+    }
+
+    public long getStolenVoices() {
+        return stolenVoices.get();
+    }
+
+    public int getActiveVoices() {
+        int active = 0;
+        for (int position : voicePosition) {
+            if (position >= 0) {
+                active++;
+            }
+        }
+        return active;
+    }
+}
@@ -0,0 +1,213 @@
+package mayhem;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Plays many full games headless with a sloppy HeadlessSoak bot to see how difficulty settings
+// play out, sweeping every combination of the values given. Games run on a work-stealing
+// pool, a few per task; each writes only its own slots of the result arrays, so nothing
+// is shared while they run. Game g uses seed g in every combination, so the combinations
+// are compared on the same games.
+//
+// Usage: java [-Dmayhem.threads=N] BalanceRunner [games] [name=v1,v2,...]...
+// Parameters (default): hearts (5), speed (100, percent of the wave table's alien and
+// mothership speeds), hits (100, percent of mothership hits per phase), fire (100, percent
+// of the mothership fire rate), cooldown (8, ticks between shots), reaction (6, ticks
+// between the bot's decisions) and aim (60, most pixels the bot misjudges its target by;
+// drawn again at every decision). -Dmayhem.waves picks the levels as usual.
+public class BalanceRunner {
+    private static final String[] PARAMETERS = {"hearts", "speed", "hits", "fire", "cooldown", "reaction", "aim"};
+    private static final int HEARTS = 0, SPEED = 1, HITS = 2, FIRE = 3, COOLDOWN = 4, REACTION = 5, AIM = 6;
+    private static final int[] DEFAULTS = {5, 100, 100, 100, 8, 6, 60};
+    static final int MAX_TICKS = 30 * 60 * GameSimulation.TICKS_PER_SECOND; // Games still going after 30 minutes are cut off
+    static final int GAMES_PER_TASK = 4;
+    static final int WIDTH = 1920, HEIGHT = 1080;
+
+    static final byte LOST = 0, WON = 1, TIMED_OUT = 2;
+
+    // Outcome of every game of one combination, indexed by game
+    static final class Results {
+        final int levels;
+        final byte[] outcome;
+        final int[] score;
+        final int[] levelReached;
+        final int[] clearTicks; // [game * levels + level - 1], 0 if the level wasn't cleared
+
+        Results(int games, int levels) {
+            this.levels = levels;
+            outcome = new byte[games];
+            score = new int[games];
+            levelReached = new int[games];
+            clearTicks = new int[games * levels];
+        }
+    }
+
+    @SuppressWarnings("serial") // Tasks are never serialized
+    private static final class Batch extends RecursiveAction {
+        private final int[] settings;
+        private final WaveTable waves;
+        private final Results results;
+        private final int from, to;
+
+        Batch(int[] settings, WaveTable waves, Results results, int from, int to) {
+            this.settings = settings;
+            this.waves = waves;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                for (int g = from; g < to; g++) {
+                    play(settings, waves, results, g);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Batch(settings, waves, results, from, mid), new Batch(settings, waves, results, mid, to));
+        }
+    }
+
+    static void play(int[] settings, WaveTable waves, Results results, int game) {
+        GameSimulation simulation = new GameSimulation(WIDTH, HEIGHT, waves);
+        simulation.setStartingHearts(settings[HEARTS]);
+        simulation.setFireCooldownTicks(settings[COOLDOWN]);
+        simulation.reset();
+        simulation.setSeed(game);
+
+        SplittableRandom bot = new SplittableRandom(game);
+        int reaction = Math.max(1, settings[REACTION]);
+        int aim = Math.max(0, settings[AIM]);
+        int inputs = 0;
+        int level = 1;
+        long levelStart = 0;
+        for (int t = 0; t < MAX_TICKS && !simulation.isGameOver(); t++) {
+            if (t % reaction == 0) {
+                inputs = HeadlessSoak.botInputs(simulation, 0, aim > 0 ? bot.nextInt(-aim, aim + 1) : 0);
+            }
+            simulation.step(inputs);
+            if (simulation.getCurrentLevel() != level) {
+                results.clearTicks[game * results.levels + level - 1] = (int) (simulation.getTick() - levelStart);
+                level = simulation.getCurrentLevel();
+                levelStart = simulation.getTick();
+            }
+        }
+        if (simulation.isGameWon()) {
+            results.clearTicks[game * results.levels + level - 1] = (int) (simulation.getTick() - levelStart);
+        }
+        results.outcome[game] = simulation.isGameWon() ? WON : simulation.isGameOver() ? LOST : TIMED_OUT;
+        results.score[game] = simulation.getScore();
+        results.levelReached[game] = level;
+    }
+
+    public static void main(String[] args) {
+        int games = 1000;
+        int[][] values = new int[PARAMETERS.length][];
+        for (int p = 0; p < PARAMETERS.length; p++) {
+            values[p] = new int[]{DEFAULTS[p]};
+        }
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                games = Integer.parseInt(arg);
+                continue;
+            }
+            int p = Arrays.asList(PARAMETERS).indexOf(arg.substring(0, eq));
+            if (p < 0) {
+                throw new IllegalArgumentException("Unknown parameter " + arg.substring(0, eq)
+                        + "; expected one of " + String.join(", ", PARAMETERS));
+            }
+            values[p] = Arrays.stream(arg.substring(eq + 1).split(",")).mapToInt(Integer::parseInt).toArray();
+        }
+        if (games < 1) {
+            System.err.println("Usage: BalanceRunner [games] [name=v1,v2,...]...  (games must be at least 1)");
+            System.exit(2);
+        }
+
+        WaveTable waves = WaveTable.load();
+        ForkJoinPool pool = new ForkJoinPool(Integer.getInteger("mayhem.threads", Runtime.getRuntime().availableProcessors()));
+        System.out.printf("%d games per combination on %d threads%n", games, pool.getParallelism());
+
+        // Step through every combination like an odometer, the last parameter fastest
+        int[] index = new int[PARAMETERS.length];
+        int[] settings = new int[PARAMETERS.length];
+        long totalStart = System.nanoTime();
+        long totalGames = 0;
+        do {
+            for (int p = 0; p < PARAMETERS.length; p++) {
+                settings[p] = values[p][index[p]];
+            }
+            WaveTable tuned = waves.tuned(settings[SPEED], settings[HITS], settings[FIRE]);
+            Results results = new Results(games, waves.levels());
+            long start = System.nanoTime();
+            pool.invoke(new Batch(settings.clone(), tuned, results, 0, games));
+            report(settings, results, System.nanoTime() - start);
+            totalGames += games;
+        } while (next(index, values));
+
+        double seconds = (System.nanoTime() - totalStart) / 1e9;
+        System.out.printf("%nTotal: %d games in %.2f s (%.0f games/s)%n", totalGames, seconds, totalGames / seconds);
+        pool.shutdown();
+    }
+
+    private static boolean next(int[] index, int[][] values) {
+        for (int p = index.length - 1; p >= 0; p--) {
+            if (++index[p] < values[p].length) {
+                return true;
+            }
+            index[p] = 0;
+        }
+        return false;
+    }
+
+    private static void report(int[] settings, Results results, long elapsedNanos) {
+        int games = results.outcome.length;
+        StringBuilder line = new StringBuilder();
+        for (int p = 0; p < PARAMETERS.length; p++) {
+            line.append(p > 0 ? " " : "").append(PARAMETERS[p]).append('=').append(settings[p]);
+        }
+        System.out.println();
+        System.out.println(line);
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("  %d games in %.2f s (%.0f games/s)%n", games, seconds, games / seconds);
+
+        int[] outcomes = new int[3];
+        long scoreTotal = 0;
+        for (int g = 0; g < games; g++) {
+            outcomes[results.outcome[g]]++;
+            scoreTotal += results.score[g];
+        }
+        System.out.printf("  won %.1f%%, lost %.1f%%, timed out %.1f%%%n", percent(outcomes[WON], games),
+                percent(outcomes[LOST], games), percent(outcomes[TIMED_OUT], games));
+        int[] scores = results.score.clone();
+        Arrays.sort(scores);
+        System.out.printf("  score p10 %d, p50 %d, p90 %d, max %d, mean %.1f%n", scores[games / 10], scores[games / 2],
+                scores[games * 9 / 10], scores[games - 1], (double) scoreTotal / games);
+
+        for (int level = 1; level <= results.levels; level++) {
+            int reached = 0, cleared = 0;
+            long clearTotal = 0;
+            for (int g = 0; g < games; g++) {
+                if (results.levelReached[g] >= level) {
+                    reached++;
+                }
+                int ticks = results.clearTicks[g * results.levels + level - 1];
+                if (ticks > 0) {
+                    cleared++;
+                    clearTotal += ticks;
+                }
+            }
+            System.out.printf("  level %d: reached %.1f%%, cleared %.1f%%, %.1f s to clear on average%n", level,
+                    percent(reached, games), percent(cleared, games),
+                    cleared > 0 ? (double) clearTotal / cleared / GameSimulation.TICKS_PER_SECOND : 0.0);
+        }
+    }
+
+    private static double percent(int count, int total) {
+        return 100.0 * count / total;
+    }
+}
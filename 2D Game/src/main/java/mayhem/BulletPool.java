@@ -0,0 +1,93 @@
+package mayhem;
+
+import java.nio.ByteBuffer;
+
+// Projectile pool for the mothership's bullet patterns. Besides the whole-pixel x/y every
+// other part of the game reads, each bullet keeps its position and velocity in fixed point
+// (1/SUBPIXEL px), so a pattern can fire at any angle and speed without the directions
+// snapping to whole-pixel steps. vx/vy hold the velocity rounded to whole pixels, for
+// drawing between ticks.
+public class BulletPool extends ProjectilePool {
+    public static final int SUBPIXEL_BITS = 8;
+    public static final int SUBPIXEL = 1 << SUBPIXEL_BITS;
+
+    private final int[] fx, fy, fvx, fvy;
+
+    public BulletPool(int capacity) {
+        super(capacity);
+        fx = new int[capacity()];
+        fy = new int[capacity()];
+        fvx = new int[capacity()];
+        fvy = new int[capacity()];
+    }
+
+    // Fire a bullet from whole-pixel (x, y) with a velocity in 1/SUBPIXEL px per tick;
+    // returns its index, or -1 if the pool was full
+    public int fire(int x, int y, int fvx, int fvy, int type) {
+        int i = acquire(x, y, wholePixels(fvx), wholePixels(fvy), type);
+        if (i >= 0) {
+            fx[i] = x << SUBPIXEL_BITS;
+            fy[i] = y << SUBPIXEL_BITS;
+            this.fvx[i] = fvx;
+            this.fvy[i] = fvy;
+        }
+        return i;
+    }
+
+    // Move bullet i one tick along its velocity
+    public void move(int i) {
+        fx[i] += fvx[i];
+        fy[i] += fvy[i];
+        x[i] = fx[i] >> SUBPIXEL_BITS;
+        y[i] = fy[i] >> SUBPIXEL_BITS;
+    }
+
+    // Whole pixels bullet i moved in its last move(), for swept collision
+    public int movedX(int i) {
+        return x[i] - ((fx[i] - fvx[i]) >> SUBPIXEL_BITS);
+    }
+
+    public int movedY(int i) {
+        return y[i] - ((fy[i] - fvy[i]) >> SUBPIXEL_BITS);
+    }
+
+    private static int wholePixels(int fixed) {
+        return (fixed + SUBPIXEL / 2) >> SUBPIXEL_BITS;
+    }
+
+    @Override
+    public void remove(int i) {
+        int last = size() - 1;
+        if (i != last) {
+            fx[i] = fx[last];
+            fy[i] = fy[last];
+            fvx[i] = fvx[last];
+            fvy[i] = fvy[last];
+        }
+        super.remove(i);
+    }
+
+    @Override
+    public int snapshotSize() {
+        return super.snapshotSize() + size() * 4 * 4;
+    }
+
+    // The fixed-point arrays follow the base format
+    @Override
+    public void writeTo(ByteBuffer out) {
+        super.writeTo(out);
+        putInts(out, fx, size());
+        putInts(out, fy, size());
+        putInts(out, fvx, size());
+        putInts(out, fvy, size());
+    }
+
+    @Override
+    public void readFrom(ByteBuffer in) {
+        super.readFrom(in);
+        getInts(in, fx, size());
+        getInts(in, fy, size());
+        getInts(in, fvx, size());
+        getInts(in, fvy, size());
+    }
+}
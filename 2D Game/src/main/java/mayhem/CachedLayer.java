@@ -0,0 +1,90 @@
+package mayhem;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// An offscreen image that is repainted only after invalidate(), then blitted every frame.
+// Used for content that changes rarely: the static text screens and the HUD.
+// The painter always works in logical pixels; setScale() sizes the image for the target.
+public class CachedLayer {
+    public interface Painter {
+        void paint(Graphics2D g);
+    }
+
+    private static final Color CLEAR = new Color(0, 0, 0, 0);
+
+    private final int width, height;
+    private final boolean opaque;
+    private final Painter painter;
+    private GraphicsConfiguration config;
+    private BufferedImage image;
+    private boolean valid = false;
+    private float scale = 1;
+
+    public CachedLayer(int width, int height, boolean opaque, Painter painter) {
+        this.width = width;
+        this.height = height;
+        this.opaque = opaque;
+        this.painter = painter;
+    }
+
+    // Device pixels per logical pixel; the image is recreated at the new size
+    public void setScale(float scale) {
+        if (scale != this.scale) {
+            this.scale = scale;
+            release();
+        }
+    }
+
+    // Repaint on the next draw
+    public void invalidate() {
+        valid = false;
+    }
+
+    public void draw(Graphics g, GraphicsConfiguration gc, int x, int y) {
+        if (image == null || gc != config) {
+            config = gc;
+            image = createImage();
+            valid = false;
+        }
+        if (!valid) {
+            repaint();
+        }
+        g.drawImage(image, Math.round(x * scale), Math.round(y * scale), null);
+    }
+
+    // Free the image; it is recreated on the next draw
+    public void release() {
+        if (image != null) {
+            image.flush();
+            image = null;
+        }
+    }
+
+    private void repaint() {
+        valid = true;
+        Graphics2D g2 = image.createGraphics();
+        try {
+            if (!opaque) {
+                g2.setComposite(AlphaComposite.Src);
+                g2.setColor(CLEAR);
+                g2.fillRect(0, 0, image.getWidth(), image.getHeight());
+                g2.setComposite(AlphaComposite.SrcOver);
+            }
+            g2.scale(scale, scale);
+            painter.paint(g2);
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    private BufferedImage createImage() {
+        int transparency = opaque ? Transparency.OPAQUE : Transparency.TRANSLUCENT;
+        int width = Math.max(1, Math.round(this.width * scale));
+        int height = Math.max(1, Math.round(this.height * scale));
+        if (config != null) {
+            return config.createCompatibleImage(width, height, transparency);
+        }
+        return new BufferedImage(width, height, opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+    }
+}
@@ -0,0 +1,198 @@
+package mayhem;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+// Client side of CoopServer. Holds a local copy of the simulation that only ever shows
+// server state, except for our own jet: every input is applied to it straight away
+// (moveJet) and re-applied on top of each snapshot until the server has seen it, so the
+// jet responds without a round trip. The other jets are interpolated between the last two
+// snapshots, one snapshot interval behind. Not thread-safe: call everything from one thread.
+public class CoopClient implements AutoCloseable {
+    private static final int PENDING = 256; // Inputs in flight we can still re-apply
+
+    private final SocketChannel channel;
+    private final int player;
+    private final int snapshotEvery;
+    private final GameSimulation simulation;
+    private final ByteBuffer in = ByteBuffer.allocateDirect(1 << 20);
+    private final ByteBuffer out = ByteBuffer.allocate(4096);
+    private ByteBuffer baseline = ByteBuffer.allocateDirect(1 << 16);
+    private ByteBuffer decoded = ByteBuffer.allocateDirect(1 << 16);
+    private int baselineLength = 0;
+
+    // Prediction: inputs sent, by sequence number, and where we predicted the jet after each
+    private final int[] sentInputs = new int[PENDING];
+    private final int[] predictedX = new int[PENDING];
+    private int sequence = 0;
+    private int acknowledged = 0;
+
+    // Interpolation of the other jets
+    private final int[] fromJetX, toJetX;
+    private long snapshotNanos = 0;
+
+    // Measurements
+    private long snapshots = 0;
+    private long bytesReceived = 0;
+    private long predictionErrorTotal = 0;
+    private int predictionErrorMax = 0;
+    private long predictionSamples = 0;
+
+    private CoopClient(SocketChannel channel, int player, int players, int width, int height, int snapshotEvery) {
+        this.channel = channel;
+        this.player = player;
+        this.snapshotEvery = snapshotEvery;
+        this.simulation = new GameSimulation(width, height, WaveTable.load(), players);
+        this.fromJetX = new int[players];
+        this.toJetX = new int[players];
+        out.flip();
+    }
+
+    // Connect and wait for the server to assign us a jet
+    public static CoopClient connect(String host, int port) throws IOException {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+        ByteBuffer welcome = ByteBuffer.allocate(4 + 1 + 6 * 4);
+        while (welcome.hasRemaining()) {
+            if (channel.read(welcome) < 0) {
+                channel.close();
+                throw new EOFException("Server closed the connection; all jets are taken?");
+            }
+        }
+        welcome.flip();
+        welcome.getInt();
+        if (welcome.get() != CoopServer.MSG_WELCOME) {
+            channel.close();
+            throw new IOException("Unexpected message from server");
+        }
+        int player = welcome.getInt();
+        int players = welcome.getInt();
+        int width = welcome.getInt();
+        int height = welcome.getInt();
+        welcome.getInt(); // Tick rate, fixed at GameSimulation.TICKS_PER_SECOND for now
+        int snapshotEvery = welcome.getInt();
+        channel.configureBlocking(false);
+        return new CoopClient(channel, player, players, width, height, snapshotEvery);
+    }
+
+    public GameSimulation getSimulation() {
+        return simulation;
+    }
+
+    public int getPlayer() {
+        return player;
+    }
+
+    // Send this tick's inputs and move our jet with them right away
+    public void sendInput(int inputs) throws IOException {
+        sequence++;
+        sentInputs[sequence % PENDING] = inputs;
+        simulation.moveJet(player, inputs);
+        predictedX[sequence % PENDING] = simulation.getJetX(player);
+
+        out.compact();
+        if (out.remaining() >= 4 + 1 + 4 + 1) {
+            out.putInt(1 + 4 + 1).put(CoopServer.MSG_INPUT).putInt(sequence).put((byte) inputs);
+        } // Otherwise the socket is backed up; the next input supersedes this one anyway
+        out.flip();
+        channel.write(out);
+    }
+
+    // Read whatever has arrived and apply complete snapshots; returns how many were applied
+    public int poll() throws IOException {
+        int read = channel.read(in);
+        if (read < 0) {
+            throw new EOFException("Server closed the connection");
+        }
+        bytesReceived += read;
+        if (out.hasRemaining()) {
+            channel.write(out);
+        }
+        in.flip();
+        int applied = 0;
+        while (in.remaining() >= 4 && in.remaining() >= 4 + in.getInt(in.position())) {
+            int length = in.getInt();
+            int end = in.position() + length;
+            if (in.get() == CoopServer.MSG_SNAPSHOT) {
+                in.getLong(); // Server tick, which the snapshot carries as well
+                int acknowledgedSequence = in.getInt();
+                applySnapshot(acknowledgedSequence);
+                applied++;
+            }
+            in.position(end);
+        }
+        in.compact();
+        return applied;
+    }
+
+    private void applySnapshot(int acknowledgedSequence) {
+        int length = in.getInt(in.position());
+        if (decoded.capacity() < length) {
+            decoded = ByteBuffer.allocateDirect(length * 2);
+        }
+        decoded.clear();
+        DeltaCodec.decode(baseline, baselineLength, in, decoded);
+        ByteBuffer previous = baseline;
+        baseline = decoded;
+        decoded = previous;
+        baselineLength = length;
+
+        for (int p = 0; p < toJetX.length; p++) {
+            fromJetX[p] = snapshots == 0 ? -1 : toJetX[p];
+        }
+        baseline.position(0).limit(length);
+        simulation.readSnapshot(baseline);
+        baseline.clear();
+        for (int p = 0; p < toJetX.length; p++) {
+            toJetX[p] = simulation.getJetX(p);
+            if (fromJetX[p] < 0) {
+                fromJetX[p] = toJetX[p];
+            }
+        }
+        snapshotNanos = System.nanoTime();
+        snapshots++;
+
+        // How far off our prediction was for the last input the server applied
+        if (acknowledgedSequence > 0 && sequence - acknowledgedSequence < PENDING) {
+            int error = Math.abs(predictedX[acknowledgedSequence % PENDING] - simulation.getJetX(player));
+            predictionErrorTotal += error;
+            predictionErrorMax = Math.max(predictionErrorMax, error);
+            predictionSamples++;
+        }
+        // Re-apply what the server hasn't seen yet on top of its state
+        acknowledged = Math.max(acknowledged, acknowledgedSequence);
+        for (int s = Math.max(acknowledged + 1, sequence - PENDING + 1); s <= sequence; s++) {
+            simulation.moveJet(player, sentInputs[s % PENDING]);
+        }
+    }
+
+    // Where to draw a jet: our own at its predicted position, the others interpolated
+    public int jetX(int p, long now) {
+        if (p == player) {
+            return simulation.getJetX(p);
+        }
+        float t = Math.min(1f, (now - snapshotNanos) / (float) (snapshotEvery * GameSimulation.TICK_NANOS));
+        return fromJetX[p] + Math.round((toJetX[p] - fromJetX[p]) * t);
+    }
+
+    // Ticks since the last snapshot, to extrapolate aliens and shots by their velocity
+    public float ticksSinceSnapshot(long now) {
+        return Math.min(snapshotEvery, (now - snapshotNanos) / (float) GameSimulation.TICK_NANOS);
+    }
+
+    public long getSnapshots() { return snapshots; }
+    public long getBytesReceived() { return bytesReceived; }
+    public int getPredictionErrorMax() { return predictionErrorMax; }
+
+    public double getPredictionErrorMean() {
+        return predictionSamples > 0 ? (double) predictionErrorTotal / predictionSamples : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,81 @@
+package mayhem;
+
+import java.io.IOException;
+
+// Runs a CoopServer and a number of bot clients over localhost and reports what the
+// server and the network cost. Every client is its own thread ticking at the game rate,
+// like a real player would, sending the HeadlessSoak bot's inputs for its jet.
+// Usage: java CoopLoadTest [clients] [seconds]
+public class CoopLoadTest {
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        CoopServer server = new CoopServer(0, clients, 1920, 1080);
+        Thread serverThread = new Thread(server, "coop-server");
+        serverThread.start();
+
+        Bot[] bots = new Bot[clients];
+        Thread[] threads = new Thread[clients];
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        for (int i = 0; i < clients; i++) {
+            bots[i] = new Bot(CoopClient.connect("localhost", server.getPort()), deadline);
+            threads[i] = new Thread(bots[i], "coop-bot-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        server.stop();
+        serverThread.join();
+
+        LatencyHistogram ticks = server.getTickTimes();
+        System.out.printf("Server: %d ticks, p50 %.1f us, p99 %.1f us, max %.1f us%n", ticks.getCount(),
+                ticks.percentile(0.50) / 1e3, ticks.percentile(0.99) / 1e3, ticks.getMax() / 1e3);
+        long sent = 0;
+        for (int p = 0; p < clients; p++) {
+            sent += server.getBytesSent(p);
+        }
+        System.out.printf("Sent %.1f KiB/s per client, %.1f%% of full snapshots (%.1f KiB/s)%n",
+                sent / 1024.0 / seconds / clients, 100.0 * sent / server.getFullSnapshotBytes(),
+                server.getFullSnapshotBytes() / 1024.0 / seconds / clients);
+        for (Bot bot : bots) {
+            CoopClient client = bot.client;
+            System.out.printf("Client %d: %d snapshots, %.1f KiB/s received, prediction error mean %.2f px, max %d px%s%n",
+                    client.getPlayer(), client.getSnapshots(), client.getBytesReceived() / 1024.0 / seconds,
+                    client.getPredictionErrorMean(), client.getPredictionErrorMax(),
+                    bot.failure != null ? ", failed: " + bot.failure : "");
+        }
+    }
+
+    private static final class Bot implements Runnable {
+        final CoopClient client;
+        final long deadline;
+        IOException failure;
+
+        Bot(CoopClient client, long deadline) {
+            this.client = client;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            try (client) {
+                long next = System.nanoTime();
+                while (next < deadline) {
+                    client.poll();
+                    client.sendInput(HeadlessSoak.botInputs(client.getSimulation(), client.getPlayer()));
+                    next += GameSimulation.TICK_NANOS;
+                    long sleep = next - System.nanoTime();
+                    if (sleep > 0) {
+                        Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
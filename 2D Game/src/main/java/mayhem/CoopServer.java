@@ -0,0 +1,323 @@
+package mayhem;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+// Authoritative co-op server. One thread runs the simulation at the fixed tick rate and
+// serves every client through a single selector with non-blocking sockets: clients send
+// their input bits, the server applies each player's latest inputs every tick and sends
+// every client a delta-compressed snapshot every SNAPSHOT_EVERY ticks, and right away when a
+// game ends.
+//
+// Messages are framed as [int length][byte type][payload]:
+//   WELCOME  server -> client  player, players, width, height, ticks per second, snapshot interval
+//   INPUT    client -> server  sequence int, input bits byte
+//   SNAPSHOT server -> client  tick long, last input sequence applied for this client int,
+//                              DeltaCodec delta against the previous snapshot sent to it
+// TCP delivers in order, so the previous snapshot sent is always the client's baseline.
+//
+// Usage: java CoopServer [port] [players] [width] [height]
+public class CoopServer implements Runnable, AutoCloseable {
+    static final byte MSG_WELCOME = 1;
+    static final byte MSG_INPUT = 2;
+    static final byte MSG_SNAPSHOT = 3;
+    static final int SNAPSHOT_EVERY = 3; // 20 snapshots per second
+    static final int GAME_OVER_TICKS = 3 * GameSimulation.TICKS_PER_SECOND; // Pause before a new game
+    private static final int OUT_BUFFER_BYTES = 1 << 20;
+
+    private final GameSimulation simulation;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Client[] clients;
+    private final int[] inputs;
+    private ByteBuffer snapshot = ByteBuffer.allocateDirect(1 << 16); // Latest snapshot, the previous ones are kept per client
+    private volatile boolean running = true;
+    private long gameOverTicks = 0;
+    private long serverTicks = 0; // Paces snapshots; keeps counting while the game is over, unlike the simulation's tick
+
+    // Measurements; read them once run() has returned
+    private final LatencyHistogram tickTimes = new LatencyHistogram();
+    private final long[] playerBytesSent;
+    private long fullSnapshotBytes = 0; // What the snapshots sent would have cost without deltas
+
+    // Per connection state, attached to its selection key
+    private static final class Client {
+        final int player;
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(4096);
+        final ByteBuffer out = ByteBuffer.allocateDirect(OUT_BUFFER_BYTES);
+        ByteBuffer baseline = ByteBuffer.allocateDirect(4096);
+        int baselineLength = 0;
+        int lastSequence = 0;
+
+        Client(int player, SocketChannel channel) {
+            this.player = player;
+            this.channel = channel;
+            out.flip(); // Empty, in read mode
+        }
+    }
+
+    public CoopServer(int port, int players, int width, int height) throws IOException {
+        this(port, new GameSimulation(width, height, WaveTable.load(), players));
+        simulation.setSeed(System.nanoTime());
+    }
+
+    // Serve a simulation set up by the caller, e.g. part-way through a game
+    CoopServer(int port, GameSimulation simulation) throws IOException {
+        this.simulation = simulation;
+        int players = simulation.getPlayers();
+        clients = new Client[players];
+        inputs = new int[players];
+        playerBytesSent = new long[players];
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    public GameSimulation getSimulation() {
+        return simulation;
+    }
+
+    // Time to run one tick, including sending snapshots, since the last reset
+    public LatencyHistogram getTickTimes() {
+        return tickTimes;
+    }
+
+    // Total bytes sent to whoever played a jet, handshake included
+    public long getBytesSent(int player) {
+        return playerBytesSent[player];
+    }
+
+    public long getFullSnapshotBytes() {
+        return fullSnapshotBytes;
+    }
+
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        FixedStepClock clock = new FixedStepClock(GameSimulation.TICK_NANOS, 5);
+        try {
+            while (running) {
+                long now = System.nanoTime();
+                int steps = clock.advance(now);
+                for (int i = 0; i < steps; i++) {
+                    long start = System.nanoTime();
+                    tick();
+                    tickTimes.record(System.nanoTime() - start);
+                }
+                long waitNanos = (long) ((1 - clock.alpha()) * GameSimulation.TICK_NANOS);
+                selector.select(Math.max(1, waitNanos / 1_000_000));
+                handleIo();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            closeQuietly();
+        }
+    }
+
+    private void tick() {
+        boolean wasOver = simulation.isGameOver();
+        simulation.step(inputs);
+        boolean ended = !wasOver && simulation.isGameOver();
+        if (simulation.isGameOver() && ++gameOverTicks >= GAME_OVER_TICKS) {
+            gameOverTicks = 0;
+            simulation.reset();
+        }
+        if (++serverTicks % SNAPSHOT_EVERY == 0 || ended) {
+            broadcast();
+        }
+    }
+
+    // Snapshot once and send each client the delta against what it has
+    private void broadcast() {
+        int size = simulation.snapshotSize();
+        if (snapshot.capacity() < size) {
+            snapshot = ByteBuffer.allocateDirect(size * 2);
+        }
+        snapshot.clear();
+        simulation.writeSnapshot(snapshot);
+        for (Client client : clients) {
+            if (client != null) {
+                try {
+                    send(client, snapshot, size);
+                } catch (IOException e) {
+                    disconnect(client);
+                }
+            }
+        }
+    }
+
+    private void send(Client client, ByteBuffer current, int size) throws IOException {
+        ByteBuffer out = client.out;
+        out.compact(); // Back to write mode, keeping anything not yet sent
+        int header = 4 + 1 + 8 + 4;
+        if (out.remaining() < header + DeltaCodec.maxEncodedSize(size)) {
+            out.flip();
+            return; // The client is far behind; skip this one and keep the same baseline
+        }
+        int frameStart = out.position();
+        out.position(frameStart + 4);
+        out.put(MSG_SNAPSHOT).putLong(simulation.getTick()).putInt(client.lastSequence);
+        DeltaCodec.encode(client.baseline, client.baselineLength, current, size, out);
+        out.putInt(frameStart, out.position() - frameStart - 4);
+        out.flip();
+
+        // The snapshot just sent becomes this client's baseline
+        if (client.baseline.capacity() < size) {
+            client.baseline = ByteBuffer.allocateDirect(size * 2);
+        }
+        client.baseline.put(0, current, 0, size);
+        client.baselineLength = size;
+        fullSnapshotBytes += header + 4 + size;
+        flush(client);
+    }
+
+    private void flush(Client client) throws IOException {
+        playerBytesSent[client.player] += client.channel.write(client.out);
+        SelectionKey key = client.channel.keyFor(selector);
+        if (key != null && key.isValid()) {
+            key.interestOps(client.out.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+
+    private void handleIo() throws IOException {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+            try {
+                if (key.isAcceptable()) {
+                    accept();
+                    continue;
+                }
+                Client client = (Client) key.attachment();
+                if (key.isReadable()) {
+                    read(client);
+                }
+                if (key.isValid() && key.isWritable()) {
+                    flush(client);
+                }
+            } catch (IOException e) {
+                disconnect((Client) key.attachment());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        int player = -1;
+        for (int p = 0; p < clients.length && player < 0; p++) {
+            if (clients[p] == null) {
+                player = p;
+            }
+        }
+        if (player < 0) {
+            channel.close(); // Every jet is taken
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Client client = new Client(player, channel);
+        clients[player] = client;
+        channel.register(selector, SelectionKey.OP_READ, client);
+
+        ByteBuffer out = client.out;
+        out.compact();
+        out.putInt(1 + 6 * 4).put(MSG_WELCOME)
+                .putInt(player).putInt(clients.length)
+                .putInt(simulation.getWidth()).putInt(simulation.getHeight())
+                .putInt(GameSimulation.TICKS_PER_SECOND).putInt(SNAPSHOT_EVERY);
+        out.flip();
+        flush(client);
+    }
+
+    private void read(Client client) throws IOException {
+        if (client.channel.read(client.in) < 0) {
+            disconnect(client);
+            return;
+        }
+        ByteBuffer in = client.in;
+        in.flip();
+        while (in.remaining() >= 4) {
+            int length = in.getInt(in.position());
+            if (length < 0 || length > in.capacity() - 4) {
+                disconnect(client); // Corrupt, or a frame that could never fit in the buffer
+                return;
+            }
+            if (in.remaining() < 4 + length) {
+                break; // Rest of the frame hasn't arrived yet
+            }
+            in.getInt();
+            int end = in.position() + length;
+            if (length >= 6 && in.get() == MSG_INPUT) {
+                client.lastSequence = in.getInt();
+                inputs[client.player] = in.get();
+            }
+            in.position(end);
+        }
+        in.compact();
+    }
+
+    private void disconnect(Client client) {
+        if (client == null) {
+            return;
+        }
+        clients[client.player] = null;
+        inputs[client.player] = 0; // The jet stays, idle
+        try {
+            client.channel.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    private void closeQuietly() {
+        for (Client client : clients) {
+            disconnect(client);
+        }
+        try {
+            server.close();
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int width = args.length > 2 ? Integer.parseInt(args[2]) : 1920;
+        int height = args.length > 3 ? Integer.parseInt(args[3]) : 1080;
+        CoopServer server = new CoopServer(port, players, width, height);
+        System.out.printf("Co-op server for %d players on port %d%n", players, server.getPort());
+        server.run();
+    }
+}
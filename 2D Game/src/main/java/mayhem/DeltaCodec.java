@@ -0,0 +1,96 @@
+package mayhem;
+
+import java.nio.ByteBuffer;
+
+// Delta compression for snapshots: the new snapshot is XORed byte by byte against a
+// baseline the receiver already has, and the result is run-length encoded. Fields that
+// didn't change XOR to zero, so a mostly static scene costs a few bytes. With an empty
+// baseline the encoding is just the snapshot with a little framing.
+//
+// Format: new length (int), then pairs of varints (zero run, literal count) each followed
+// by that many XORed bytes, until the new length is covered. Baseline bytes past its
+// length count as zero.
+public final class DeltaCodec {
+    private DeltaCodec() {
+    }
+
+    // Encode current[0, currentLength) against baseline[0, baselineLength) into out
+    public static void encode(ByteBuffer baseline, int baselineLength, ByteBuffer current, int currentLength, ByteBuffer out) {
+        out.putInt(currentLength);
+        int i = 0;
+        while (i < currentLength) {
+            int zeroStart = i;
+            while (i < currentLength && xor(baseline, baselineLength, current, i) == 0) {
+                i++;
+            }
+            int literalStart = i;
+            // A literal run ends at the first stretch of 4 zero bytes, which is cheaper to skip
+            int zeros = 0;
+            while (i < currentLength && zeros < 4) {
+                zeros = xor(baseline, baselineLength, current, i) == 0 ? zeros + 1 : 0;
+                i++;
+            }
+            int literalEnd = zeros == 4 ? i - 4 : i;
+            if (zeros == 4) {
+                i -= 4;
+            }
+            putVarint(out, literalStart - zeroStart);
+            putVarint(out, literalEnd - literalStart);
+            for (int k = literalStart; k < literalEnd; k++) {
+                out.put(xor(baseline, baselineLength, current, k));
+            }
+        }
+    }
+
+    // Decode a delta against baseline into out, starting at out's position; returns the new length
+    public static int decode(ByteBuffer baseline, int baselineLength, ByteBuffer in, ByteBuffer out) {
+        int length = in.getInt();
+        int start = out.position();
+        int i = 0;
+        while (i < length) {
+            int zeroRun = getVarint(in);
+            int literals = getVarint(in);
+            // Compared against what is left, as adding two huge runs could overflow
+            if (zeroRun < 0 || literals < 0 || zeroRun > length - i || literals > length - i - zeroRun) {
+                throw new IllegalArgumentException("Corrupt snapshot delta");
+            }
+            for (int end = i + zeroRun; i < end; i++) {
+                out.put(start + i, i < baselineLength ? baseline.get(i) : 0);
+            }
+            for (int end = i + literals; i < end; i++) {
+                out.put(start + i, (byte) (in.get() ^ (i < baselineLength ? baseline.get(i) : 0)));
+            }
+        }
+        out.position(start + length);
+        return length;
+    }
+
+    // Worst-case encoded size for a snapshot of the given length
+    public static int maxEncodedSize(int length) {
+        return 4 + length + 10 * (length / 4 + 1);
+    }
+
+    private static byte xor(ByteBuffer baseline, int baselineLength, ByteBuffer current, int i) {
+        return (byte) (current.get(i) ^ (i < baselineLength ? baseline.get(i) : 0));
+    }
+
+    static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static int getVarint(ByteBuffer in) {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 35);
+        return value;
+    }
+}
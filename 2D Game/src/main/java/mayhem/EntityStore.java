@@ -0,0 +1,156 @@
+package mayhem;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Structure-of-arrays storage for one kind of entity (aliens, shots, ...).
+// Entities are packed into [0, size()) and removed by swapping in the last one,
+// so iterate with a plain index loop, going backwards when removing in the loop.
+// The arrays are replaced when the store grows; don't hold on to them across add().
+public class EntityStore {
+    int[] x, y; // Position (top-left corner)
+    int[] vx, vy; // Velocity in pixels per tick
+    int[] type;
+    boolean[] alive; // Cleared by kill(), compacted away by removeDead()
+    private int count = 0;
+
+    public EntityStore(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        x = new int[capacity];
+        y = new int[capacity];
+        vx = new int[capacity];
+        vy = new int[capacity];
+        type = new int[capacity];
+        alive = new boolean[capacity];
+    }
+
+    // Add an entity and return its index
+    public int add(int x, int y, int vx, int vy, int type) {
+        if (count == this.x.length) {
+            grow();
+        }
+        int i = count++;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.vx[i] = vx;
+        this.vy[i] = vy;
+        this.type[i] = type;
+        this.alive[i] = true;
+        return i;
+    }
+
+    // Remove entity i in O(1) by moving the last entity into its slot
+    public void remove(int i) {
+        int last = --count;
+        if (i != last) {
+            x[i] = x[last];
+            y[i] = y[last];
+            vx[i] = vx[last];
+            vy[i] = vy[last];
+            type[i] = type[last];
+            alive[i] = alive[last];
+        }
+        alive[last] = false;
+    }
+
+    // Mark entity i as dead without moving anything, so other indices stay valid
+    public void kill(int i) {
+        alive[i] = false;
+    }
+
+    public boolean isAlive(int i) {
+        return alive[i];
+    }
+
+    // Remove every entity marked by kill()
+    public void removeDead() {
+        for (int i = count - 1; i >= 0; i--) {
+            if (!alive[i]) {
+                remove(i);
+            }
+        }
+    }
+
+    public int getX(int i) { return x[i]; }
+    public int getY(int i) { return y[i]; }
+    public int getVx(int i) { return vx[i]; }
+    public int getVy(int i) { return vy[i]; }
+    public int getType(int i) { return type[i]; }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public int capacity() {
+        return x.length;
+    }
+
+    public void clear() {
+        Arrays.fill(alive, 0, count, false);
+        count = 0;
+    }
+
+    // Bytes written by writeTo() for the current contents
+    public int snapshotSize() {
+        return 4 + count * 5 * 4;
+    }
+
+    // Append the live entities to a snapshot: the count, then each array in turn.
+    // Only call between ticks, when nothing is waiting in removeDead().
+    public void writeTo(ByteBuffer out) {
+        out.putInt(count);
+        putInts(out, x, count);
+        putInts(out, y, count);
+        putInts(out, vx, count);
+        putInts(out, vy, count);
+        putInts(out, type, count);
+    }
+
+    // Replace the contents with entities read by writeTo()'s format
+    public void readFrom(ByteBuffer in) {
+        int n = in.getInt();
+        if (n < 0 || n > maxSize()) {
+            throw new IllegalArgumentException("Bad entity count in snapshot: " + n);
+        }
+        clear();
+        while (x.length < n) {
+            grow();
+        }
+        getInts(in, x, n);
+        getInts(in, y, n);
+        getInts(in, vx, n);
+        getInts(in, vy, n);
+        getInts(in, type, n);
+        Arrays.fill(alive, 0, n, true);
+        count = n;
+    }
+
+    // Most entities readFrom() accepts
+    protected int maxSize() {
+        return Integer.MAX_VALUE / 20;
+    }
+
+    static void putInts(ByteBuffer out, int[] values, int n) {
+        out.asIntBuffer().put(values, 0, n); // Bulk copy; the view shares out's byte order
+        out.position(out.position() + n * 4);
+    }
+
+    static void getInts(ByteBuffer in, int[] values, int n) {
+        in.asIntBuffer().get(values, 0, n);
+        in.position(in.position() + n * 4);
+    }
+
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        vx = Arrays.copyOf(vx, capacity);
+        vy = Arrays.copyOf(vy, capacity);
+        type = Arrays.copyOf(type, capacity);
+        alive = Arrays.copyOf(alive, capacity);
+    }
+}
@@ -0,0 +1,206 @@
+package mayhem;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Game events from the simulation, broadcast to consumers that each read them at their own
+// pace on their own thread: the game loop for particles and scores, the audio mixer, the
+// stats thread. One producer (the thread stepping the simulation) writes into preallocated
+// parallel arrays and publishes with a single ordered store; every consumer has its own
+// cursor. Neither side locks or allocates.
+//
+// A consumer from consumer() sees every event: the producer never overwrites what it hasn't
+// read. The producer never waits either, so when such a consumer is a whole ring behind the
+// event is dropped for everyone and counted; depth(), getHighWaterMark() and getDropped()
+// show how close that is. A consumer from lossyConsumer() never holds the producer back:
+// if it falls a ring behind, it skips what was overwritten and counts it in getSkipped().
+// Use it for readers that can stall, like the audio thread blocked on its line.
+public final class EventRing {
+    // Receives one event; x and y as for GameSimulation.Listener, tick when it happened
+    public interface Handler {
+        void onEvent(int event, int x, int y, long tick);
+    }
+
+    // One reader's position in the ring. Poll only from one thread at a time.
+    public final class Consumer implements AutoCloseable {
+        private final String name;
+        private final boolean lossy;
+        private final AtomicLong cursor; // Next event to read
+        private volatile long skipped = 0; // Written only by the polling thread
+
+        private Consumer(String name, boolean lossy, long start) {
+            this.name = name;
+            this.lossy = lossy;
+            this.cursor = new AtomicLong(start);
+        }
+
+        // Handle every event published since the last poll that is still in the ring;
+        // returns how many were handled
+        public int poll(Handler handler) {
+            long next = cursor.get();
+            long end = published.get();
+            if (lossy && end - next >= type.length) {
+                skipped += end - next - (type.length - 1); // Already overwritten, or about to be
+                next = end - (type.length - 1);
+            }
+            int handled = 0;
+            for (long s = next; s < end; s++) {
+                int i = (int) (s & mask);
+                int event = type[i], ex = x[i], ey = y[i];
+                long et = tick[i];
+                if (lossy) {
+                    // The producer may have lapped us while we read the slot; pairs with the
+                    // store fence in publish()
+                    VarHandle.loadLoadFence();
+                    if (published.get() - s >= type.length) {
+                        skipped++;
+                        continue;
+                    }
+                }
+                handler.onEvent(event, ex, ey, et);
+                handled++;
+            }
+            cursor.lazySet(end); // Frees the slots for the producer
+            return handled;
+        }
+
+        // Events published but not read yet
+        public int lag() {
+            return (int) (published.get() - cursor.get());
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        // Events a lossy consumer missed because the producer overwrote them first
+        public long getSkipped() {
+            return skipped;
+        }
+
+        // Stop reading; the producer no longer keeps events for this consumer
+        @Override
+        public void close() {
+            remove(this);
+        }
+    }
+
+    private final int[] type, x, y;
+    private final long[] tick;
+    private final int mask;
+    private final AtomicLong published = new AtomicLong(); // Events written so far, owned by the producer
+    private volatile Consumer[] consumers = new Consumer[0];
+    private long slowest = 0; // Producer's cached cursor of the slowest lossless consumer; only ever behind the real one
+    private long dropped = 0;
+    private int highWaterMark = 0;
+
+    public EventRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        type = new int[capacity];
+        x = new int[capacity];
+        y = new int[capacity];
+        tick = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    // Start reading events published from now on, every one of them
+    public Consumer consumer(String name) {
+        return add(new Consumer(name, false, published.get()));
+    }
+
+    // Start reading events published from now on, skipping any overwritten before they were read
+    public Consumer lossyConsumer(String name) {
+        return add(new Consumer(name, true, published.get()));
+    }
+
+    private synchronized Consumer add(Consumer c) {
+        Consumer[] list = Arrays.copyOf(consumers, consumers.length + 1);
+        list[list.length - 1] = c;
+        consumers = list;
+        return c;
+    }
+
+    private synchronized void remove(Consumer c) {
+        Consumer[] list = consumers;
+        for (int i = 0; i < list.length; i++) {
+            if (list[i] == c) {
+                Consumer[] shorter = Arrays.copyOf(list, list.length - 1);
+                System.arraycopy(list, i + 1, shorter, i, list.length - 1 - i);
+                consumers = shorter;
+                return;
+            }
+        }
+    }
+
+    // Producer side; returns false if the event was dropped because a lossless consumer is a
+    // full ring behind
+    public boolean publish(int event, int x, int y, long tick) {
+        long s = published.get();
+        if (s - slowest >= highWaterMark) { // Rescan only when the cache claims a new high, or a full ring
+            slowest = slowestCursor(s);
+            if (s - slowest >= type.length) {
+                dropped++;
+                return false;
+            }
+        }
+        int i = (int) (s & mask);
+        VarHandle.storeStoreFence(); // Lossy readers see the overwrite only after the cursor that allows it
+        this.type[i] = event;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.tick[i] = tick;
+        published.lazySet(s + 1); // Publishes the slot writes to the consumers
+        int depth = (int) (s + 1 - slowest);
+        if (depth > highWaterMark) {
+            highWaterMark = depth;
+        }
+        return true;
+    }
+
+    private long slowestCursor(long limit) {
+        long min = limit;
+        for (Consumer c : consumers) {
+            if (!c.lossy) {
+                min = Math.min(min, c.cursor.get());
+            }
+        }
+        return min;
+    }
+
+    public int capacity() {
+        return type.length;
+    }
+
+    // Events the slowest lossless consumer has still to read
+    public int depth() {
+        long s = published.get();
+        return (int) (s - slowestCursor(s));
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    // Most events waiting at once. This and getDropped() are kept by the producer and
+    // read exactly only on its thread
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    // Events not published because the ring was full
+    public long getDropped() {
+        return dropped;
+    }
+
+    // Events lossy consumers missed, summed over the ones still reading
+    public long getSkipped() {
+        long sum = 0;
+        for (Consumer c : consumers) {
+            sum += c.skipped;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,50 @@
+package mayhem;
+
+// Converts wall-clock time into a whole number of fixed simulation ticks
+public class FixedStepClock {
+    private final long stepNanos;
+    private final int maxStepsPerAdvance; // Caps catch-up so a long stall can't spiral
+    private boolean started = false; // nanoTime() may be negative, so lastTime can't double as the flag
+    private long lastTime = 0;
+    private long accumulator = 0;
+
+    public FixedStepClock(long stepNanos, int maxStepsPerAdvance) {
+        this.stepNanos = stepNanos;
+        this.maxStepsPerAdvance = maxStepsPerAdvance;
+    }
+
+    // Returns how many ticks should run to catch up with the given time
+    public int advance(long now) {
+        if (!started) {
+            started = true;
+            lastTime = now;
+            return 0;
+        }
+        accumulator += now - lastTime;
+        lastTime = now;
+
+        long steps = accumulator / stepNanos;
+        if (steps > maxStepsPerAdvance) {
+            // Too far behind: run the capped number of ticks and drop the rest of the backlog
+            steps = maxStepsPerAdvance;
+            accumulator = 0;
+        } else {
+            accumulator -= steps * stepNanos;
+        }
+        return (int) steps;
+    }
+
+    // Fraction of the next tick already elapsed, in [0, 1)
+    public float alpha() {
+        return (float) accumulator / stepNanos;
+    }
+
+    public long getStepNanos() {
+        return stepNanos;
+    }
+
+    public void reset() {
+        started = false;
+        accumulator = 0;
+    }
+}
@@ -0,0 +1,44 @@
+package mayhem;
+
+import jdk.jfr.*;
+
+// One rendered frame, for diagnosing stutters from a JFR recording after the fact.
+// Only frames longer than the threshold are kept by default; set it to 0 ms in a
+// custom .jfc to record every frame.
+@Name("mayhem.Frame")
+@Label("Frame")
+@Category("Mothership Mayhem")
+@Description("Time spent in each phase of one game frame")
+@StackTrace(false)
+@Threshold("20 ms")
+public class FrameEvent extends Event {
+    @Label("Input")
+    @Timespan
+    long input;
+
+    @Label("Update")
+    @Timespan
+    long update;
+
+    @Label("Collision")
+    @Timespan
+    long collision;
+
+    @Label("Render")
+    @Timespan
+    long render;
+
+    @Label("Event Dispatch")
+    @Timespan
+    long events;
+
+    @Label("Entities")
+    int entities;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+
+    @Label("Tick")
+    long tick;
+}
@@ -0,0 +1,146 @@
+package mayhem;
+
+import java.awt.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+// Per-phase frame timing for the game loop thread. Phase durations are summed over a
+// frame with add(), then endFrame() records them into histograms, emits a FrameEvent to
+// JFR and, once a second, rebuilds the text shown by the overlay (p50 / p99 / max for
+// each phase, entity counts and bytes allocated per frame). Not thread-safe: every call
+// must come from the thread running the game loop.
+public class FrameProfiler {
+    public static final int INPUT = 0;
+    public static final int UPDATE = 1;
+    public static final int COLLISION = 2;
+    public static final int RENDER = 3;
+    public static final int EVENTS = 4; // Game loop's share of simulation events: particles, scores
+    public static final int FRAME = 5; // Interval between the end of one frame and the next
+    private static final int PHASES = 6;
+    private static final String[] PHASE_NAMES = {"input", "update", "collision", "render", "events", "frame"};
+    private static final long SUMMARY_NANOS = 1_000_000_000L;
+
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 16);
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 170);
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES];
+    private final long[] current = new long[PHASES];
+    private final com.sun.management.ThreadMXBean allocations;
+    private long lastFrameEnd = 0;
+    private long summaryStart = 0;
+    private long frameStartAllocated = 0;
+    private long allocatedSinceSummary = 0;
+    private int framesSinceSummary = 0;
+    private FrameEvent event = new FrameEvent();
+    private volatile String[] summary = new String[]{"collecting..."};
+    private Supplier<String[]> footer = null;
+
+    public FrameProfiler() {
+        for (int i = 0; i < PHASES; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        allocations = threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+                ? (com.sun.management.ThreadMXBean) threads : null;
+    }
+
+    // Call when a frame starts
+    public void beginFrame() {
+        event.begin();
+        frameStartAllocated = allocatedBytes();
+    }
+
+    // Add time spent in a phase during the current frame
+    public void add(int phase, long nanos) {
+        current[phase] += nanos;
+    }
+
+    // Call when a frame has been drawn
+    public void endFrame(int entities, long tick) {
+        long now = System.nanoTime();
+        if (lastFrameEnd != 0) {
+            current[FRAME] = now - lastFrameEnd;
+        }
+        lastFrameEnd = now;
+        long allocated = allocatedBytes() - frameStartAllocated;
+
+        for (int i = 0; i < PHASES; i++) {
+            if (i != FRAME || current[FRAME] > 0) {
+                histograms[i].record(current[i]);
+            }
+        }
+
+        event.end();
+        if (event.isEnabled() && event.shouldCommit()) {
+            event.input = current[INPUT];
+            event.update = current[UPDATE];
+            event.collision = current[COLLISION];
+            event.render = current[RENDER];
+            event.events = current[EVENTS];
+            event.entities = entities;
+            event.allocated = allocated;
+            event.tick = tick;
+            event.commit();
+            event = new FrameEvent(); // Committed events can't be reused; only happens while recording
+        }
+
+        allocatedSinceSummary += allocated;
+        framesSinceSummary++;
+        Arrays.fill(current, 0);
+
+        if (summaryStart == 0) {
+            summaryStart = now;
+        } else if (now - summaryStart >= SUMMARY_NANOS) {
+            summarize(entities);
+            summaryStart = now;
+        }
+    }
+
+    // Rebuild the overlay text from the last second of frames, then start a new window
+    private void summarize(int entities) {
+        String[] extra = footer != null ? footer.get() : new String[0];
+        String[] lines = new String[PHASES + 2 + extra.length];
+        lines[0] = String.format("%d fps  %d entities  %d B/frame", framesSinceSummary, entities,
+                allocations != null ? allocatedSinceSummary / Math.max(1, framesSinceSummary) : -1);
+        lines[1] = String.format("%-10s %8s %8s %8s", "ms", "p50", "p99", "max");
+        for (int i = 0; i < PHASES; i++) {
+            LatencyHistogram h = histograms[i];
+            lines[i + 2] = String.format("%-10s %8.2f %8.2f %8.2f", PHASE_NAMES[i],
+                    h.percentile(0.50) / 1e6, h.percentile(0.99) / 1e6, h.getMax() / 1e6);
+            h.reset();
+        }
+        System.arraycopy(extra, 0, lines, PHASES + 2, extra.length);
+        summary = lines;
+        allocatedSinceSummary = 0;
+        framesSinceSummary = 0;
+    }
+
+    // Extra lines for the overlay, e.g. figures from other threads; read once a second with the summary
+    public void setFooter(Supplier<String[]> footer) {
+        this.footer = footer;
+    }
+
+    // Draw the last summary in a translucent box
+    public void drawOverlay(Graphics g, int x, int y) {
+        String[] lines = summary;
+        g.setFont(OVERLAY_FONT);
+        int lineHeight = g.getFontMetrics().getHeight();
+        g.setColor(OVERLAY_BACKGROUND);
+        g.fillRect(x, y, 420, lineHeight * lines.length + 10);
+        g.setColor(Color.GREEN);
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], x + 8, y + 5 + lineHeight * (i + 1) - 4);
+        }
+    }
+
+    public String[] getSummary() {
+        return summary;
+    }
+
+    private long allocatedBytes() {
+        return allocations != null ? allocations.getCurrentThreadAllocatedBytes() : 0;
+    }
+}
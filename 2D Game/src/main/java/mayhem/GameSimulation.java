@@ -0,0 +1,738 @@
+package mayhem;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+
+// Headless game logic, advanced one fixed tick at a time with step(inputs)
+public class GameSimulation {
+    public static final int TICKS_PER_SECOND = 60;
+    public static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+
+    // Input bits for step()
+    public static final int INPUT_LEFT = 1;
+    public static final int INPUT_RIGHT = 1 << 1;
+    public static final int INPUT_FIRE = 1 << 2;
+
+    // Events reported to the listener
+    public static final int EVENT_SHOT_FIRED = 0;
+    public static final int EVENT_ALIEN_DESTROYED = 1;
+    public static final int EVENT_ALIEN_ESCAPED = 2; // Alien passed the bottom edge
+    public static final int EVENT_MOTHERSHIP_HIT = 3;
+    public static final int EVENT_PLAYER_HIT = 4;
+    public static final int EVENT_GAME_WON = 5;
+    public static final int EVENT_GAME_LOST = 6;
+    public static final int EVENT_LEVEL_CLEARED = 7; // x is the level just cleared
+
+    // Entity types stored in the entity stores
+    public static final int TYPE_ALIEN = 0;
+    public static final int TYPE_PLAYER_SHOT = 1;
+    public static final int TYPE_MOTHERSHIP_SHOT = 2;
+
+    // x and y are the center of what the event happened to, e.g. the destroyed alien
+    public interface Listener {
+        void onEvent(int event, int x, int y);
+    }
+
+    private final int jetMaxSpeed = 12; // Jet velocity cap, pixels per tick
+    private final int jetAcceleration = 3; // Velocity change per tick while moving or braking
+    private final int shotSpeed = 10; // Player's shot movement speed
+
+    // Constants for jet dimensions
+    public static final int JET_WIDTH = 120;
+    public static final int JET_HEIGHT = 120;
+
+    // Constants for alien dimensions
+    public static final int ALIEN_WIDTH = 100;
+    public static final int ALIEN_HEIGHT = 100;
+
+    // Projectile pool sizes; shots fired while a pool is full are dropped
+    public static final int PLAYER_SHOT_CAPACITY = 256;
+    public static final int MOTHERSHIP_SHOT_CAPACITY = 4096;
+
+    // Constants for shot dimensions
+    public static final int SHOT_WIDTH = 20;
+    public static final int SHOT_HEIGHT = 60;
+
+    // Mothership properties
+    public static final int MOTHERSHIP_WIDTH = 370;
+    public static final int MOTHERSHIP_HEIGHT = 270;
+    public static final int MOTHERSHIP_Y = 50;
+
+    private final int width, height;
+    private Listener listener = (event, x, y) -> { };
+
+    private long tick = 0;
+    private long collisionNanos = 0; // Time spent in checkCollisions since the last takeCollisionNanos()
+    private boolean gameWon = false, gameLost = false;
+    private boolean mothershipExists = false;
+    private int currentLevel = 1;
+    private int score = 0;
+    // One jet per player; co-op players share the score and hearts
+    private final int players;
+    private final int[] jetX;
+    private int jetY;
+    private final int[] jetVelocity; // Pixels per tick, positive to the right
+    private int fireCooldownTicks = 8;
+    private final long[] nextFireTick; // First tick each jet may fire again
+    private final int[] prevJetX; // Positions before the last tick, for render extrapolation
+    private int prevMothershipX;
+    private final int[] stepInputs;
+    private int mothershipHits = 0;
+    private int hearts = 5; // Player's lives
+    private int startingHearts = 5;
+    private int mothershipX = 0;
+    private int mothershipDirection = 1; // 1 for right, -1 for left
+    private long random = 0; // SplitMix64 state; every random choice comes from here so runs replay exactly
+
+    private final ProjectilePool shots;
+    private final EntityStore aliens = new EntityStore(64);
+    private final BulletPool mothershipShots = new BulletPool(MOTHERSHIP_SHOT_CAPACITY); // Mothership's projectiles
+    private final SpatialGrid alienGrid; // Broad phase for shots vs aliens
+
+    // Wave spawning, driven by the level table
+    private final WaveTable waves;
+    private boolean endless = false; // Keep going past the last level with scaled-up repeats
+    private int levelRow, levelRepetition; // Table row for the current level and times the table has wrapped
+    private long levelStartTick, waveEndTick;
+    private int nextWave, waveSpawned; // Wave being spawned and aliens of it already placed
+    private boolean mothershipPending;
+    private int mothershipPhase, phaseHitsLeft;
+    private int volleyCountdown; // Ticks to the next volley, for phases firing on an interval
+    private int patternAngle; // Degrees a spiral has turned since its phase began
+    private final int[] position = new int[2];
+
+    private ForkJoinPool swarmPool; // Moves large stores in parallel when set, see SwarmMover
+
+    // Snapshot format, see writeSnapshot()
+    private static final int SNAPSHOT_MAGIC = 0x534D4D4D; // "MMMS"
+    private static final int SNAPSHOT_VERSION = 3;
+    private static final int SNAPSHOT_HEADER_BYTES = 4 + 4 + 4 + 4 + 8 + 4;
+    private static final int SNAPSHOT_STATE_BYTES = 8 * 4 + 4 * 17;
+    private static final int SNAPSHOT_JET_BYTES = 4 * 3 + 8;
+    private final long wavesChecksum;
+
+    public GameSimulation(int width, int height) {
+        this(width, height, WaveTable.load());
+    }
+
+    public GameSimulation(int width, int height, WaveTable waves) {
+        this(width, height, waves, 1);
+    }
+
+    // A co-op game with one jet per player
+    public GameSimulation(int width, int height, WaveTable waves, int players) {
+        this(width, height, waves, players, PLAYER_SHOT_CAPACITY);
+    }
+
+    // A player-shot pool of another size, for benchmarks that need more shots than a game
+    // ever has. Snapshots only restore into a simulation with a pool at least as large.
+    public GameSimulation(int width, int height, WaveTable waves, int players, int shotCapacity) {
+        if (players < 1) {
+            throw new IllegalArgumentException("Need at least one player: " + players);
+        }
+        this.width = width;
+        this.height = height;
+        this.waves = waves;
+        this.players = players;
+        this.jetX = new int[players];
+        this.jetVelocity = new int[players];
+        this.nextFireTick = new long[players];
+        this.prevJetX = new int[players];
+        this.stepInputs = new int[players];
+        this.shots = new ProjectilePool(shotCapacity);
+        this.wavesChecksum = waves.checksum();
+        this.alienGrid = new SpatialGrid(width, height, 2 * ALIEN_WIDTH);
+        reset();
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener != null ? listener : (event, x, y) -> { };
+    }
+
+    // Reset to the start of level 1
+    public void reset() {
+        tick = 0;
+        gameWon = false;
+        gameLost = false;
+        score = 0;
+        currentLevel = 1;
+        hearts = startingHearts;
+        mothershipHits = 0;
+        mothershipExists = false;
+        mothershipDirection = 1;
+        for (int p = 0; p < players; p++) {
+            jetX[p] = (p + 1) * width / (players + 1) - JET_WIDTH / 2; // Spread evenly, one jet is centered
+            prevJetX[p] = jetX[p];
+            jetVelocity[p] = 0;
+            nextFireTick[p] = 0;
+        }
+        jetY = height - JET_HEIGHT - 30; // Positioned 30 pixels from the bottom
+        shots.clear();
+        mothershipShots.clear();
+        startLevel(currentLevel);
+    }
+
+    // Advance the game by exactly one tick; inputs are for the first jet, others stay idle
+    public void step(int inputs) {
+        stepInputs[0] = inputs;
+        step(stepInputs);
+    }
+
+    // Advance the game by exactly one tick with the inputs of every player
+    public void step(int[] inputs) {
+        if (isGameOver()) {
+            return;
+        }
+        tick++;
+        System.arraycopy(jetX, 0, prevJetX, 0, players);
+        prevMothershipX = mothershipX;
+        for (int p = 0; p < players; p++) {
+            applyInputs(p, inputs[p]);
+        }
+        updateAliens();
+        spawnPending(); // After the move, so new aliens are drawn where they spawned
+        updateShots();
+        if (mothershipExists) {
+            updateMothership();
+            updateMothershipShots();
+        }
+        long collisionStart = System.nanoTime();
+        checkCollisions();
+        collisionNanos += System.nanoTime() - collisionStart;
+        checkLevelCompletion();
+    }
+
+    // Collision time accumulated over the ticks since the last call, for profiling
+    public long takeCollisionNanos() {
+        long nanos = collisionNanos;
+        collisionNanos = 0;
+        return nanos;
+    }
+
+    // Inputs are the buttons held during this tick: holding a direction accelerates the jet up
+    // to its top speed, releasing it brakes, and holding fire shoots once per cooldown
+    private void applyInputs(int player, int inputs) {
+        moveJet(player, inputs);
+        if ((inputs & INPUT_FIRE) != 0 && tick >= nextFireTick[player]) {
+            // Fire a shot from center of the jet; dropped if the pool is exhausted
+            if (shots.acquire(jetX[player] + JET_WIDTH / 2 - 10, jetY, 0, -shotSpeed, TYPE_PLAYER_SHOT) >= 0) {
+                listener.onEvent(EVENT_SHOT_FIRED, jetX[player] + JET_WIDTH / 2, jetY);
+                nextFireTick[player] = tick + fireCooldownTicks;
+            }
+        }
+    }
+
+    // The movement part of a tick's inputs for one jet. Network clients call this on its own
+    // to predict their jet ahead of the server.
+    public void moveJet(int player, int inputs) {
+        int direction = 0;
+        if ((inputs & INPUT_LEFT) != 0) {
+            direction--;
+        }
+        if ((inputs & INPUT_RIGHT) != 0) {
+            direction++;
+        }
+        int velocity = jetVelocity[player];
+        if (direction != 0) {
+            velocity = clamp(velocity + direction * jetAcceleration, -jetMaxSpeed, jetMaxSpeed);
+        } else if (velocity != 0) {
+            velocity -= Integer.signum(velocity) * Math.min(jetAcceleration, Math.abs(velocity));
+        }
+        int x = jetX[player] + velocity;
+        // Boundary check: keep the jet on screen, stopping at the edge
+        if (x < 0 || x > width - JET_WIDTH) {
+            x = clamp(x, 0, width - JET_WIDTH);
+            velocity = 0;
+        }
+        jetX[player] = x;
+        jetVelocity[player] = velocity;
+    }
+
+    // Minimum ticks between two player shots while fire is held
+    public void setFireCooldownTicks(int ticks) {
+        fireCooldownTicks = Math.max(1, ticks);
+    }
+
+    public int getFireCooldownTicks() {
+        return fireCooldownTicks;
+    }
+
+    // Lives at the start of each game, from the next reset on
+    public void setStartingHearts(int hearts) {
+        startingHearts = Math.max(1, hearts);
+    }
+
+    // Seed the random generator; a given seed and input sequence always plays out the same.
+    // Not touched by reset(), so consecutive games keep drawing from one sequence.
+    public void setSeed(long seed) {
+        random = seed;
+    }
+
+    // Uniform in [0, bound), SplitMix64
+    private int nextRandom(int bound) {
+        random += 0x9E3779B97F4A7C15L;
+        long z = random;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (int) ((z >>> 1) % bound);
+    }
+
+    // Hash of everything that affects future ticks, to check that two runs are in step
+    public long checksum() {
+        long h = 0xCBF29CE484222325L;
+        h = mix(h, tick);
+        h = mix(h, (gameWon ? 1 : 0) | (gameLost ? 2 : 0) | (mothershipExists ? 4 : 0) | (mothershipPending ? 8 : 0));
+        h = mix(h, currentLevel);
+        h = mix(h, score);
+        h = mix(h, hearts);
+        h = mix(h, jetX[0]);
+        h = mix(h, jetY);
+        h = mix(h, jetVelocity[0]);
+        h = mix(h, nextFireTick[0]);
+        h = mix(h, mothershipX);
+        h = mix(h, mothershipDirection);
+        h = mix(h, mothershipHits);
+        h = mix(h, mothershipPhase);
+        h = mix(h, phaseHitsLeft);
+        h = mix(h, volleyCountdown);
+        h = mix(h, patternAngle);
+        h = mix(h, random);
+        h = mix(h, levelStartTick);
+        h = mix(h, waveEndTick);
+        h = mix(h, nextWave);
+        h = mix(h, waveSpawned);
+        h = mix(h, checksum(aliens));
+        h = mix(h, checksum(shots));
+        h = mix(h, checksum(mothershipShots));
+        for (int p = 1; p < players; p++) {
+            h = mix(h, jetX[p]);
+            h = mix(h, jetVelocity[p]);
+            h = mix(h, nextFireTick[p]);
+        }
+        return h;
+    }
+
+    private static long checksum(EntityStore store) {
+        long h = store.size();
+        for (int i = 0; i < store.size(); i++) {
+            h = mix(h, store.x[i]);
+            h = mix(h, store.y[i]);
+            h = mix(h, store.vx[i]);
+            h = mix(h, store.vy[i]);
+            h = mix(h, store.type[i]);
+        }
+        return h;
+    }
+
+    // Exact size of the snapshot writeSnapshot() would write now
+    public int snapshotSize() {
+        return SNAPSHOT_HEADER_BYTES + SNAPSHOT_STATE_BYTES + players * SNAPSHOT_JET_BYTES
+                + aliens.snapshotSize() + shots.snapshotSize() + mothershipShots.snapshotSize();
+    }
+
+    // Write the complete state at the buffer's position: a header identifying the field size,
+    // level table and player count, every scalar field, the jets, then the three entity stores
+    // as flat int arrays.
+    // Settings (listener, fire cooldown, endless, swarm pool) aren't part of it. Allocates
+    // nothing per entity, so it can run every tick; call between ticks.
+    public void writeSnapshot(ByteBuffer out) {
+        out.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putInt(width).putInt(height).putLong(wavesChecksum)
+                .putInt(players);
+        out.putLong(tick).putLong(random).putLong(levelStartTick).putLong(waveEndTick);
+        out.putInt((gameWon ? 1 : 0) | (gameLost ? 2 : 0) | (mothershipExists ? 4 : 0) | (mothershipPending ? 8 : 0))
+                .putInt(currentLevel).putInt(score).putInt(hearts).putInt(jetY)
+                .putInt(mothershipX).putInt(prevMothershipX).putInt(mothershipDirection).putInt(mothershipHits)
+                .putInt(mothershipPhase).putInt(phaseHitsLeft).putInt(volleyCountdown).putInt(patternAngle)
+                .putInt(levelRow).putInt(levelRepetition).putInt(nextWave).putInt(waveSpawned);
+        for (int p = 0; p < players; p++) {
+            out.putInt(jetX[p]).putInt(jetVelocity[p]).putInt(prevJetX[p]).putLong(nextFireTick[p]);
+        }
+        aliens.writeTo(out);
+        shots.writeTo(out);
+        mothershipShots.writeTo(out);
+    }
+
+    // Replace the whole state with a snapshot from writeSnapshot(). Throws
+    // IllegalArgumentException if it was taken with a different field size, level table or
+    // number of players.
+    public void readSnapshot(ByteBuffer in) {
+        if (in.getInt() != SNAPSHOT_MAGIC || in.getInt() != SNAPSHOT_VERSION) {
+            throw new IllegalArgumentException("Not a snapshot, or from another version");
+        }
+        int snapshotWidth = in.getInt();
+        int snapshotHeight = in.getInt();
+        long snapshotWaves = in.getLong();
+        int snapshotPlayers = in.getInt();
+        if (snapshotWidth != width || snapshotHeight != height || snapshotWaves != wavesChecksum
+                || snapshotPlayers != players) {
+            throw new IllegalArgumentException("Snapshot is for a " + snapshotWidth + "x" + snapshotHeight
+                    + " field with " + snapshotPlayers + " players or other levels");
+        }
+        tick = in.getLong();
+        random = in.getLong();
+        levelStartTick = in.getLong();
+        waveEndTick = in.getLong();
+        int flags = in.getInt();
+        gameWon = (flags & 1) != 0;
+        gameLost = (flags & 2) != 0;
+        mothershipExists = (flags & 4) != 0;
+        mothershipPending = (flags & 8) != 0;
+        currentLevel = in.getInt();
+        score = in.getInt();
+        hearts = in.getInt();
+        jetY = in.getInt();
+        mothershipX = in.getInt();
+        prevMothershipX = in.getInt();
+        mothershipDirection = in.getInt();
+        mothershipHits = in.getInt();
+        mothershipPhase = in.getInt();
+        phaseHitsLeft = in.getInt();
+        volleyCountdown = in.getInt();
+        patternAngle = in.getInt();
+        levelRow = in.getInt();
+        levelRepetition = in.getInt();
+        nextWave = in.getInt();
+        waveSpawned = in.getInt();
+        for (int p = 0; p < players; p++) {
+            jetX[p] = in.getInt();
+            jetVelocity[p] = in.getInt();
+            prevJetX[p] = in.getInt();
+            nextFireTick[p] = in.getLong();
+        }
+        aliens.readFrom(in);
+        shots.readFrom(in);
+        mothershipShots.readFrom(in);
+    }
+
+    // FNV-1a style step over a whole 64-bit value
+    static long mix(long h, long value) {
+        return (h ^ value) * 0x100000001B3L;
+    }
+
+    // Swarm mode: move aliens on this pool once there are more than a chunk of them, or null
+    // to stay on the calling thread. Results are identical either way.
+    public void setSwarmPool(ForkJoinPool pool) {
+        swarmPool = pool;
+    }
+
+    private boolean isSwarm(EntityStore store) {
+        return swarmPool != null && store.size() > SwarmMover.CHUNK;
+    }
+
+    // Endless mode: after the last level the table repeats with more, faster aliens
+    public void setEndless(boolean endless) {
+        this.endless = endless;
+    }
+
+    // Update Alien Positions
+    public void updateAliens() {
+        EntityStore a = aliens;
+        if (isSwarm(a)) {
+            // Move in parallel, then apply the escapes in the sequential loop's order
+            if (SwarmMover.move(swarmPool, a, Integer.MIN_VALUE, height) > 0) {
+                for (int i = a.size() - 1; i >= 0; i--) {
+                    if (!a.alive[i]) {
+                        alienEscaped(i);
+                    }
+                }
+            }
+            return;
+        }
+        for (int i = a.size() - 1; i >= 0; i--) {
+            a.y[i] += a.vy[i]; // Move alien downwards
+            if (a.y[i] > height) {
+                alienEscaped(i);
+            }
+        }
+    }
+
+    private void alienEscaped(int i) {
+        hearts--; // Lose a heart if alien passes the screen
+        int x = aliens.x[i] + ALIEN_WIDTH / 2;
+        aliens.remove(i); // Remove alien
+        listener.onEvent(EVENT_ALIEN_ESCAPED, x, height);
+        if (hearts <= 0) {
+            loseGame();
+        }
+    }
+
+    // Update Player's Shots. The shot pool never holds a chunk's worth, so unlike the aliens
+    // they always move on this thread.
+    public void updateShots() {
+        ProjectilePool s = shots;
+        for (int i = s.size() - 1; i >= 0; i--) {
+            s.y[i] += s.vy[i]; // Move shot upwards
+            if (s.y[i] < 0) {
+                s.release(i); // Remove shot if it goes off-screen
+            }
+        }
+    }
+
+    // Update Mothership Position and Shooting
+    public void updateMothership() {
+        mothershipX += mothershipDirection * waves.phaseSpeed(mothershipPhase, levelRepetition); // Move mothership
+
+        // Change direction at screen edges
+        if (mothershipX <= 0 || mothershipX + MOTHERSHIP_WIDTH >= width) {
+            mothershipDirection *= -1;
+        }
+
+        // A volley every few ticks, or on a per mille chance each tick, as the phase says
+        int every = waves.phaseEvery[mothershipPhase];
+        if (every > 0) {
+            if (--volleyCountdown <= 0) {
+                volleyCountdown = every;
+                fireVolley(mothershipPhase);
+            }
+        } else if (nextRandom(1000) < waves.phaseFire[mothershipPhase]) {
+            fireVolley(mothershipPhase);
+        }
+    }
+
+    // Fire one volley of the phase's pattern from the middle of the mothership's underside.
+    // Angles are in degrees, 0 straight down and positive towards +x. StrictMath, so every
+    // machine works out the same velocities.
+    private void fireVolley(int phase) {
+        WaveTable t = waves;
+        int n = t.phaseBullets[phase];
+        int x = mothershipX + MOTHERSHIP_WIDTH / 2 - SHOT_WIDTH / 2;
+        int y = MOTHERSHIP_Y + MOTHERSHIP_HEIGHT;
+        double first, step;
+        switch (t.phasePattern[phase]) {
+            case WaveTable.PATTERN_SPIRAL:
+                step = 360.0 / n;
+                first = patternAngle;
+                patternAngle = (patternAngle + t.phaseTurn[phase]) % 360;
+                break;
+            case WaveTable.PATTERN_AIMED: {
+                int target = 0;
+                for (int p = 1; p < players; p++) {
+                    if (Math.abs(jetX[p] - x) < Math.abs(jetX[target] - x)) {
+                        target = p;
+                    }
+                }
+                double aim = StrictMath.toDegrees(StrictMath.atan2(
+                        jetX[target] + JET_WIDTH / 2 - (x + SHOT_WIDTH / 2), jetY + JET_HEIGHT / 2 - (y + SHOT_HEIGHT / 2)));
+                step = n > 1 ? (double) t.phaseArc[phase] / (n - 1) : 0;
+                first = aim - step * (n - 1) / 2;
+                break;
+            }
+            default:
+                step = n > 1 ? (double) t.phaseArc[phase] / (n - 1) : 0;
+                first = -step * (n - 1) / 2;
+                break;
+        }
+        double speed = t.phaseShotSpeed[phase] * BulletPool.SUBPIXEL;
+        for (int k = 0; k < n; k++) {
+            double angle = StrictMath.toRadians(first + k * step);
+            mothershipShots.fire(x, y, (int) StrictMath.round(speed * StrictMath.sin(angle)),
+                    (int) StrictMath.round(speed * StrictMath.cos(angle)), TYPE_MOTHERSHIP_SHOT);
+        }
+    }
+
+    // Update Mothership's Shots. Bullets move in two dimensions, so they never go through
+    // SwarmMover, which only moves stores vertically.
+    public void updateMothershipShots() {
+        BulletPool s = mothershipShots;
+        for (int i = s.size() - 1; i >= 0; i--) {
+            s.move(i);
+            if (s.y[i] > height || s.y[i] < -SHOT_HEIGHT || s.x[i] < -SHOT_WIDTH || s.x[i] > width) {
+                s.release(i);
+            }
+        }
+    }
+
+    // Collision Detection
+    public void checkCollisions() {
+        ProjectilePool s = shots;
+        EntityStore a = aliens;
+
+        // Player's shots vs Aliens: broad phase through the grid, then an exact test. Tests
+        // here are swept over the tick, so nothing fast passes through what it should hit.
+        if (!a.isEmpty() && !s.isEmpty()) {
+            alienGrid.build(a, ALIEN_WIDTH, ALIEN_HEIGHT);
+            int reach = 0; // Furthest any alien moved this tick
+            for (int j = 0; j < a.size(); j++) {
+                reach = Math.max(reach, Math.max(Math.abs(a.vx[j]), Math.abs(a.vy[j])));
+            }
+            for (int i = s.size() - 1; i >= 0; i--) {
+                // Query where the shot went this tick, grown by how far an alien could have come
+                int candidates = alienGrid.query(s.x[i] - Math.max(s.vx[i], 0) - reach, s.y[i] - Math.max(s.vy[i], 0) - reach,
+                        SHOT_WIDTH + Math.abs(s.vx[i]) + 2 * reach, SHOT_HEIGHT + Math.abs(s.vy[i]) + 2 * reach);
+                for (int k = 0; k < candidates; k++) {
+                    int j = alienGrid.result(k);
+                    if (a.alive[j] && Aabb.swept(s.x[i], s.y[i], SHOT_WIDTH, SHOT_HEIGHT, s.vx[i], s.vy[i],
+                            a.x[j], a.y[j], ALIEN_WIDTH, ALIEN_HEIGHT, a.vx[j], a.vy[j])) {
+                        a.kill(j); // Grid holds alien indices, so compact after the pass
+                        s.release(i);
+                        score += 10;
+                        listener.onEvent(EVENT_ALIEN_DESTROYED, a.x[j] + ALIEN_WIDTH / 2, a.y[j] + ALIEN_HEIGHT / 2);
+                        break;
+                    }
+                }
+            }
+            a.removeDead();
+        }
+
+        // Player's shots vs Mothership
+        if (mothershipExists) {
+            int mothershipMoved = mothershipX - prevMothershipX;
+            for (int i = s.size() - 1; i >= 0 && mothershipExists; i--) {
+                if (Aabb.swept(s.x[i], s.y[i], SHOT_WIDTH, SHOT_HEIGHT, s.vx[i], s.vy[i],
+                        mothershipX, MOTHERSHIP_Y, MOTHERSHIP_WIDTH, MOTHERSHIP_HEIGHT, mothershipMoved, 0)) {
+                    mothershipHits++;
+                    listener.onEvent(EVENT_MOTHERSHIP_HIT, s.x[i] + SHOT_WIDTH / 2, s.y[i]);
+                    s.release(i);
+                    if (--phaseHitsLeft == 0) {
+                        if (mothershipPhase + 1 < waves.levelPhaseEnd[levelRow]) {
+                            startPhase(mothershipPhase + 1);
+                        } else {
+                            mothershipExists = false;
+                            mothershipShots.clear(); // Its bullets go with it; nothing moves or draws them any more
+                            score += 100; // Bonus for defeating mothership
+                        }
+                    }
+                }
+            }
+
+            // Mothership's shots vs Players
+            BulletPool m = mothershipShots;
+            for (int i = m.size() - 1; i >= 0; i--) {
+                for (int p = 0; p < players; p++) {
+                    if (Aabb.swept(m.x[i], m.y[i], SHOT_WIDTH, SHOT_HEIGHT, m.movedX(i), m.movedY(i),
+                            jetX[p], jetY, JET_WIDTH, JET_HEIGHT, jetX[p] - prevJetX[p], 0)) {
+                        m.release(i);
+                        hearts--; // Lose a heart
+                        listener.onEvent(EVENT_PLAYER_HIT, jetX[p] + JET_WIDTH / 2, jetY + JET_HEIGHT / 2);
+                        if (hearts <= 0) {
+                            loseGame();
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    // Check if Level is Completed
+    public void checkLevelCompletion() {
+        if (!gameLost && aliens.isEmpty() && !mothershipExists && isLevelSpawned()) {
+            if (currentLevel < waves.levels() || endless) {
+                listener.onEvent(EVENT_LEVEL_CLEARED, currentLevel, 0);
+                currentLevel++;
+                startLevel(currentLevel);
+            } else {
+                gameWon = true;
+                listener.onEvent(EVENT_GAME_WON, width / 2, height / 2);
+            }
+        }
+    }
+
+    private void loseGame() {
+        if (!gameLost) {
+            gameLost = true;
+            listener.onEvent(EVENT_GAME_LOST, width / 2, height / 2);
+        }
+    }
+
+    // Start a level: clear the field and queue its waves, spawning whatever is due right away
+    public void startLevel(int level) {
+        aliens.clear();
+        mothershipExists = false;
+        mothershipShots.clear();
+        levelStartTick = tick;
+        waveEndTick = tick;
+        levelRow = waves.row(level);
+        levelRepetition = waves.repetition(level);
+        nextWave = waves.levelFirstWave[levelRow];
+        waveSpawned = 0;
+        mothershipPending = waves.levelMothershipAt[levelRow] >= 0;
+        spawnPending();
+    }
+
+    // Spawn aliens whose waves are due, at most the table's budget per tick so a large wave
+    // is spread over several ticks. Each alien starts where it would be had the whole wave
+    // appeared on time, so formations stay intact however long they take to spawn.
+    public void spawnPending() {
+        WaveTable t = waves;
+        int budget = t.spawnBudget;
+        int waveEnd = t.levelWaveEnd[levelRow];
+        while (nextWave < waveEnd) {
+            long due = levelStartTick + t.waveAt[nextWave];
+            if (tick < due) {
+                return;
+            }
+            int count = t.waveCount(nextWave, levelRepetition);
+            int speed = t.waveSpeed(nextWave, levelRepetition);
+            int late = (int) (tick - due) * speed;
+            for (; waveSpawned < count; waveSpawned++) {
+                if (budget-- == 0) {
+                    return;
+                }
+                t.place(nextWave, waveSpawned, count, width, position);
+                aliens.add(position[0], position[1] + late, 0, speed, TYPE_ALIEN);
+            }
+            nextWave++;
+            waveSpawned = 0;
+            waveEndTick = tick;
+        }
+        if (mothershipPending && tick >= waveEndTick + t.levelMothershipAt[levelRow]) {
+            mothershipPending = false;
+            mothershipExists = true;
+            mothershipHits = 0;
+            startPhase(t.levelFirstPhase[levelRow]);
+            // Initialize mothership position at center
+            mothershipX = (width - MOTHERSHIP_WIDTH) / 2;
+            prevMothershipX = mothershipX;
+        }
+    }
+
+    // Enter a mothership phase, with its pattern starting over
+    private void startPhase(int phase) {
+        mothershipPhase = phase;
+        phaseHitsLeft = waves.phaseHits(phase, levelRepetition);
+        volleyCountdown = waves.phaseEvery[phase];
+        patternAngle = 0;
+    }
+
+    // True once every wave and the mothership of the current level have appeared
+    public boolean isLevelSpawned() {
+        return nextWave == waves.levelWaveEnd[levelRow] && !mothershipPending;
+    }
+
+    // Helper method to clamp values within a range
+    static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    // Read-only state for rendering
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public long getTick() { return tick; }
+    public boolean isGameWon() { return gameWon; }
+    public boolean isGameLost() { return gameLost; }
+    public boolean isGameOver() { return gameWon || gameLost; }
+    public boolean isMothershipExists() { return mothershipExists; }
+    public int getCurrentLevel() { return currentLevel; }
+    public int getScore() { return score; }
+    public int getHearts() { return hearts; }
+    public int getStartingHearts() { return startingHearts; }
+    public int getPlayers() { return players; }
+    public int getJetX() { return jetX[0]; }
+    public int getJetX(int player) { return jetX[player]; }
+    public int getJetY() { return jetY; }
+    public int getPrevJetX() { return prevJetX[0]; }
+    public int getPrevJetX(int player) { return prevJetX[player]; }
+    public int getJetVelocity() { return jetVelocity[0]; }
+    public int getJetVelocity(int player) { return jetVelocity[player]; }
+    public int getMothershipX() { return mothershipX; }
+    public int getPrevMothershipX() { return prevMothershipX; }
+    public int getMothershipHits() { return mothershipHits; }
+    public int getMothershipPhase() { return mothershipPhase - waves.levelFirstPhase[levelRow]; }
+    public boolean isEndless() { return endless; }
+    public WaveTable getWaves() { return waves; }
+    public EntityStore getAliens() { return aliens; }
+    public ProjectilePool getShots() { return shots; }
+    public BulletPool getMothershipShots() { return mothershipShots; }
+}
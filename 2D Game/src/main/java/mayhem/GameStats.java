@@ -0,0 +1,59 @@
+package mayhem;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Running totals of simulation events, counted on a thread of its own from an EventRing
+// consumer so keeping them costs the game loop nothing. Counts are read from any thread.
+// The consumer is lossy: a stalled stats thread undercounts rather than holding up the ring.
+public class GameStats implements Runnable, AutoCloseable {
+    public static final int EVENT_TYPES = GameSimulation.EVENT_LEVEL_CLEARED + 1;
+    private static final long POLL_MILLIS = 100;
+
+    private final EventRing.Consumer events;
+    private final EventRing.Handler counter = this::count;
+    private final AtomicLongArray counts = new AtomicLongArray(EVENT_TYPES);
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public GameStats(EventRing ring) {
+        events = ring.lossyConsumer("stats");
+        thread = new Thread(this, "Game stats");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            events.poll(counter);
+            try {
+                Thread.sleep(POLL_MILLIS); // Nothing here is urgent
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        events.close();
+    }
+
+    private void count(int event, int x, int y, long tick) {
+        if (event >= 0 && event < EVENT_TYPES) {
+            counts.incrementAndGet(event);
+        }
+    }
+
+    public long count(int event) {
+        return counts.get(event);
+    }
+
+    // Events not counted yet
+    public int lag() {
+        return events.lag();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+    }
+}
@@ -0,0 +1,98 @@
+package mayhem;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+// Runs the simulation with no display as fast as possible to soak-test the game logic.
+// Usage: java -Djava.awt.headless=true [options] HeadlessSoak [ticks] [width] [height]
+// Options: -Dmayhem.endless=true, -Dmayhem.swarm=THREADS, -Dmayhem.seed=N (default 1) and
+// -Dmayhem.record=FILE to save the bot's session as a replay.
+public class HeadlessSoak {
+    public static void main(String[] args) throws IOException {
+        long ticks = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000L;
+        int width = args.length > 1 ? Integer.parseInt(args[1]) : 1920;
+        int height = args.length > 2 ? Integer.parseInt(args[2]) : 1080;
+
+        GameSimulation simulation = new GameSimulation(width, height);
+        simulation.setEndless(Boolean.getBoolean("mayhem.endless"));
+        int swarmThreads = Integer.getInteger("mayhem.swarm", 0);
+        if (swarmThreads > 0) {
+            simulation.setSwarmPool(new ForkJoinPool(swarmThreads));
+        }
+        long seed = Long.getLong("mayhem.seed", 1);
+        simulation.setSeed(seed);
+        String recordFile = System.getProperty("mayhem.record");
+        ReplayRecorder recorder = recordFile != null
+                ? new ReplayRecorder(Paths.get(recordFile), simulation, seed, GameSimulation.TICKS_PER_SECOND * 10) : null;
+        int games = 0, wins = 0, highestLevel = 0;
+
+        long start = System.nanoTime();
+        for (long t = 0; t < ticks; t++) {
+            int inputs = botInputs(simulation);
+            simulation.step(inputs);
+            if (recorder != null) {
+                recorder.recordStep(inputs);
+            }
+            highestLevel = Math.max(highestLevel, simulation.getCurrentLevel());
+            if (simulation.isGameOver()) {
+                games++;
+                if (simulation.isGameWon()) {
+                    wins++;
+                }
+                simulation.reset();
+                if (recorder != null) {
+                    recorder.recordReset();
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (recorder != null) {
+            recorder.close();
+        }
+
+        double seconds = elapsed / 1e9;
+        System.out.printf("%d ticks in %.3f s (%.0f ticks/s, %.1fx real time)%n",
+                ticks, seconds, ticks / seconds, ticks / seconds / GameSimulation.TICKS_PER_SECOND);
+        System.out.printf("%d games finished, %d won, highest level %d%n", games, wins, highestLevel);
+        printPool("Player shots", simulation.getShots());
+        printPool("Mothership shots", simulation.getMothershipShots());
+    }
+
+    static void printPool(String name, ProjectilePool pool) {
+        System.out.printf("%s pool: %d/%d slots, %d hits, %d misses, high-water %d%n",
+                name, pool.size(), pool.capacity(), pool.getHits(), pool.getMisses(), pool.getHighWaterMark());
+    }
+
+    // Simple bot: chase the lowest alien (or the mothership) with fire held down
+    static int botInputs(GameSimulation simulation) {
+        return botInputs(simulation, 0);
+    }
+
+    static int botInputs(GameSimulation simulation, int player) {
+        return botInputs(simulation, player, 0);
+    }
+
+    // aimOffset shifts where the bot thinks its target is, to make it miss now and then
+    static int botInputs(GameSimulation simulation, int player, int aimOffset) {
+        int targetX = simulation.getMothershipX() + GameSimulation.MOTHERSHIP_WIDTH / 2;
+        int lowestY = Integer.MIN_VALUE;
+        EntityStore aliens = simulation.getAliens();
+        for (int i = 0; i < aliens.size(); i++) {
+            if (aliens.getY(i) > lowestY) {
+                lowestY = aliens.getY(i);
+                targetX = aliens.getX(i) + GameSimulation.ALIEN_WIDTH / 2;
+            }
+        }
+
+        targetX += aimOffset;
+        int inputs = GameSimulation.INPUT_FIRE; // Rate limited by the fire cooldown
+        int jetCenter = simulation.getJetX(player) + GameSimulation.JET_WIDTH / 2;
+        if (targetX < jetCenter - 10) {
+            inputs |= GameSimulation.INPUT_LEFT;
+        } else if (targetX > jetCenter + 10) {
+            inputs |= GameSimulation.INPUT_RIGHT;
+        }
+        return inputs;
+    }
+}
@@ -0,0 +1,88 @@
+package mayhem;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Key press and release transitions recorded on the EDT and sampled once per simulation tick.
+// The EDT is the only producer and the game loop the only consumer, so a single-producer
+// single-consumer ring with two counters is enough; neither side ever blocks.
+public class InputBuffer {
+    private static final int RELEASED = 1 << 31; // Set on a transition when the key went up
+
+    private final int[] transitions;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // Next slot to read, owned by the consumer
+    private final AtomicLong tail = new AtomicLong(); // Next slot to write, owned by the producer
+    private volatile boolean clearRequested = false;
+    private volatile long clearTo = 0; // Transitions before this slot are dropped by a clear
+    private int held = 0; // Input bits currently down, as seen by the consumer
+    private long overflows = 0;
+
+    public InputBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        transitions = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    // Producer side
+    public void press(int bit) {
+        offer(bit);
+    }
+
+    public void release(int bit) {
+        offer(bit | RELEASED);
+    }
+
+    // Release everything on the next sample, e.g. when the window loses focus and key-up
+    // events will never arrive. Transitions recorded before the call are dropped with it.
+    public void releaseAll() {
+        clearTo = tail.get();
+        clearRequested = true;
+    }
+
+    private void offer(int transition) {
+        long t = tail.get();
+        if (t - head.get() >= transitions.length) {
+            // Full: the game loop has stalled for hundreds of transitions. Dropping is safe
+            // because releaseAll() on focus loss, or the next transition, resyncs the state.
+            overflows++;
+            return;
+        }
+        transitions[(int) (t & mask)] = transition;
+        tail.lazySet(t + 1); // Publishes the slot write to the consumer
+    }
+
+    // Consumer side: apply transitions since the last tick and return the input bits for this
+    // tick. A key pressed and released between two ticks still counts as down for one tick.
+    public int sample() {
+        long h = head.get();
+        if (clearRequested) {
+            clearRequested = false;
+            held = 0;
+            h = Math.max(h, clearTo); // Replaying them could press keys that are no longer down
+        }
+        int pressed = 0; // Bits that went down since the last tick, even if already released
+        long t = tail.get();
+        for (; h < t; h++) {
+            int transition = transitions[(int) (h & mask)];
+            int bit = transition & ~RELEASED;
+            if ((transition & RELEASED) != 0) {
+                held &= ~bit;
+            } else {
+                held |= bit;
+                pressed |= bit;
+            }
+        }
+        head.lazySet(h); // Frees the slots for the producer
+        return held | pressed;
+    }
+
+    public int getHeld() {
+        return held;
+    }
+
+    public long getOverflows() {
+        return overflows;
+    }
+}
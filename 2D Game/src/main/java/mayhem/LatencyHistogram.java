@@ -0,0 +1,72 @@
+package mayhem;
+
+import java.util.Arrays;
+
+// Fixed-size log-linear histogram of nanosecond durations. Values keep 5 significant
+// bits (about 3% precision) from 1 ns to hours in 1024 buckets; recording is a
+// couple of shifts and an array increment, with no allocation.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int HALF = 1 << (SUB_BUCKET_BITS - 1);
+
+    private final long[] counts = new long[1024];
+    private long total = 0;
+    private long max = 0;
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts[index(nanos)]++;
+        total++;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    // Smallest recorded bucket value below which the given fraction of samples fall
+    public long percentile(double fraction) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, upperValue(i));
+            }
+        }
+        return max;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getCount() {
+        return total;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        max = 0;
+    }
+
+    static int index(long value) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(value | (2 * HALF - 1));
+        int shift = magnitude - (SUB_BUCKET_BITS - 1);
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    // Highest value that lands in bucket i
+    static long upperValue(int i) {
+        if (i < 2 * HALF) {
+            return i;
+        }
+        int shift = i / HALF - 1;
+        long sub = i - (long) shift * HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,948 @@
+package mayhem;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+public class MothershipMayhemGame extends JPanel implements ActionListener, KeyListener {
+    private Timer timer;
+    // Screen flags are written on the EDT and read by the game loop, which may be the render thread
+    private volatile boolean titleScreen = true;
+    private volatile boolean instructionScreen = false; // Tracks if instructions screen is active
+    private volatile boolean resetRequested = false; // Restart is applied by the game loop
+
+    // Game logic runs headless in the simulation at a fixed tick rate
+    private GameSimulation simulation;
+    private final FixedStepClock clock = new FixedStepClock(GameSimulation.TICK_NANOS, 5);
+    private final InputBuffer input = new InputBuffer(256); // Key transitions from the EDT, sampled once per tick
+    private ReplayRecorder recorder; // Set with -Dmayhem.record=FILE
+    private CoopClient coop; // Set with -Dmayhem.connect=HOST:PORT; the server's simulation is shown instead
+
+    // Rewind (hold R) through a snapshot of every tick, and save/resume with F5/F9.
+    // Both are off while recording, since a replay only holds forward ticks, and in co-op.
+    private static final int INPUT_REWIND = 1 << 8; // Handled here, never passed to the simulation
+    private static final Path SAVE_FILE = Paths.get(System.getProperty("mayhem.save", "mayhem.sav"));
+    private final SnapshotRing history = new SnapshotRing(GameSimulation.TICKS_PER_SECOND * 10);
+    private volatile boolean saveRequested = false;
+    private volatile boolean loadRequested = false;
+
+    // Every finished game goes into the score log (-Dmayhem.scores, default scores.log); the
+    // title screen shows the best of them
+    private static final int HIGH_SCORES_SHOWN = 5;
+    private final ScoreStore scores = ScoreStore.open(Paths.get(System.getProperty("mayhem.scores", "scores.log")));
+    private boolean scoreSubmitted = false; // This game's result is in the log; rewinding past it doesn't add another
+    private ScoreStore.Top layerScores; // High scores currently painted into screenLayer
+
+    // Explosions, debris and exhaust; visual only, stepped with the simulation's ticks
+    private final ParticleSystem particles = new ParticleSystem(Integer.getInteger("mayhem.particles", 32768));
+
+    // Frame timing, shown with F3 and recorded as JFR events
+    private final FrameProfiler profiler = new FrameProfiler();
+    private volatile boolean overlayVisible = false;
+
+    // Simulation events are published to a ring and read by each part of the game on its own
+    // thread: the game loop for particles and scores, the mixer for sound effects, and
+    // GameStats for running totals. Only the game loop, which polls after every step, holds
+    // events back; the other two may skip some if they stall. Depth, drops and skips show in
+    // the F3 overlay.
+    private final EventRing events = new EventRing(4096);
+    private final EventRing.Consumer loopEvents = events.consumer("game loop");
+    private final EventRing.Handler loopHandler = this::onLoopEvent;
+    private final GameStats stats = new GameStats(events);
+
+    // Asset paths; the play field's images are listed in PlayfieldRenderer
+    private static final String HEART_IMAGE = "pictures/fp6koryn.png"; // Heart image
+    private static final String EXPLOSION_SOUND = "sounds/Voicy_Explosion (online-audio-converter.com).wav";
+    private static final String SHOOT_SOUND = "sounds/ambience-launch-of-two-model-rockets-one-small-and-one-larger-243895.wav";
+    private static final String WIN_SOUND = "sounds/you-win-sequence-2-183949.wav";
+    private static final String LOSE_SOUND = "sounds/8-bit-video-game-lose-sound-version-1-145828.wav";
+    private static final String MUSIC = "sounds/space-adventure-29296 (online-audio-converter.com).wav";
+    // Music per level, crossfaded on level change (one track ships today)
+    private static final String[] LEVEL_MUSIC = {MUSIC, MUSIC, MUSIC, MUSIC, MUSIC};
+    private static final int MUSIC_FADE_MILLIS = 2000;
+
+    // Assets load in the background; the title screen shows progress until they are ready
+    private final AssetManager assets = AssetManager.get();
+    private volatile boolean assetsReady = false;
+    private static final Animation MISSING_IMAGE = Animation.still(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB));
+
+    // Pre-scaled copies of the images above, drawn without per-frame scaling. GIFs animate
+    // with the simulation tick, so they pause, rewind and replay along with the game.
+    private final SpriteCache sprites = new SpriteCache();
+    private PlayfieldRenderer playfield;
+    private Image heartImage; // Drawn into the HUD layer, which does its own scaling
+
+    // Cached layers: the current static screen, and the HUD while playing
+    private static final int SCREEN_TITLE = 0, SCREEN_INSTRUCTIONS = 1, SCREEN_WON = 2, SCREEN_LOST = 3, SCREEN_PLAYING = 4;
+    private static final int HUD_WIDTH = 600, HUD_HEIGHT = 110;
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 100);
+    private static final Font HEADING_FONT = new Font("Arial", Font.BOLD, 80);
+    private static final Font MESSAGE_FONT = new Font("Arial", Font.PLAIN, 80);
+    private static final Font PROMPT_FONT = new Font("Arial", Font.PLAIN, 50);
+    private static final Font TEXT_FONT = new Font("Arial", Font.PLAIN, 40);
+    private CachedLayer screenLayer;
+    private final CachedLayer hudLayer = new CachedLayer(HUD_WIDTH, HUD_HEIGHT, false, this::paintHud);
+    private int layerScreen = -1; // Screen currently painted into screenLayer
+    private int hudScore = -1, hudHearts = -1; // Values currently painted into hudLayer
+
+    // Sound clips
+    // Background music is streamed from disk rather than held in memory
+    private final MusicStreamer music = new MusicStreamer();
+    private int musicLevel = 1; // Level whose track is playing
+
+    // Sound effects are mixed in software; these are the mixer's sound ids
+    private final AudioMixer mixer = new AudioMixer(16, 256); // 16 voices, ~6 ms blocks
+    private int explosionSound = -1, shootSound = -1, winSound = -1, loseSound = -1;
+
+    // Constants for screen dimensions. These are logical pixels: the game is laid out and
+    // simulated at a fixed resolution (-Dmayhem.resolution=WxH, default 1920x1080) on any display.
+    private int SCREEN_WIDTH;
+    private int SCREEN_HEIGHT;
+
+    // Frames are drawn into one back buffer of the logical size times the render scale
+    // (-Dmayhem.renderScale, 0.25 to 2, default 1; lower trades sharpness for fill rate),
+    // which is then scaled to the window in a single pass
+    private final float renderScale = Math.max(0.25f, Math.min(2f,
+            Float.parseFloat(System.getProperty("mayhem.renderScale", "1"))));
+    private Image backBuffer; // VolatileImage on a display, BufferedImage offscreen
+    // Bilinear scaling is free on the OpenGL/Direct3D pipelines but ~45 ms a frame in software,
+    // so it is opt-in (-Dmayhem.smoothScaling=true); nearest neighbour is exact at integer factors
+    private static final Object SCALING = Boolean.getBoolean("mayhem.smoothScaling")
+            ? RenderingHints.VALUE_INTERPOLATION_BILINEAR : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR;
+
+    public MothershipMayhemGame() {
+        this(logicalSize());
+    }
+
+    private static Dimension logicalSize() {
+        String[] size = System.getProperty("mayhem.resolution", "1920x1080").toLowerCase().split("x");
+        return new Dimension(Integer.parseInt(size[0].trim()), Integer.parseInt(size[1].trim()));
+    }
+
+    // Game sized to the given play field; also usable headless, e.g. to render offscreen
+    public MothershipMayhemGame(Dimension size) {
+        setFocusable(true);
+        addKeyListener(this);
+        requestAssets();
+        coop = connect(System.getProperty("mayhem.connect"));
+        SCREEN_WIDTH = coop != null ? coop.getSimulation().getWidth() : size.width; // Play on the server's field
+        SCREEN_HEIGHT = coop != null ? coop.getSimulation().getHeight() : size.height;
+        screenLayer = new CachedLayer(SCREEN_WIDTH, SCREEN_HEIGHT, true, this::paintScreen);
+        screenLayer.setScale(renderScale);
+        hudLayer.setScale(renderScale);
+        sprites.setScale(renderScale);
+        simulation = coop != null ? coop.getSimulation() : new GameSimulation(SCREEN_WIDTH, SCREEN_HEIGHT);
+        simulation.setListener(this::publishEvent);
+        profiler.setFooter(this::eventSummary);
+        simulation.setEndless(Boolean.getBoolean("mayhem.endless"));
+        int swarmThreads = Integer.getInteger("mayhem.swarm", 0);
+        if (swarmThreads > 0) {
+            simulation.setSwarmPool(new ForkJoinPool(swarmThreads));
+        }
+        simulation.setFireCooldownTicks(Integer.getInteger("mayhem.fireCooldown", simulation.getFireCooldownTicks()));
+        long seed = Long.getLong("mayhem.seed", System.nanoTime());
+        simulation.setSeed(seed);
+        if (coop == null) {
+            startRecording(seed);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(scores::close, "Score log closer"));
+        addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                input.releaseAll(); // Key releases won't be delivered to us any more
+            }
+        });
+    }
+
+    // Join a CoopServer, or play alone if there is none (or it can't be reached)
+    private static CoopClient connect(String address) {
+        if (address == null) {
+            return null;
+        }
+        int colon = address.lastIndexOf(':');
+        try {
+            return CoopClient.connect(colon > 0 ? address.substring(0, colon) : address,
+                    colon > 0 ? Integer.parseInt(address.substring(colon + 1)) : 7777);
+        } catch (IOException | NumberFormatException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Rewind, save and load rewrite the simulation, which only a local, unrecorded game may do
+    private boolean canRewriteHistory() {
+        return recorder == null && coop == null;
+    }
+
+    // Record every tick's inputs for ReplayPlayer; the file is finished when the JVM exits
+    private void startRecording(long seed) {
+        String file = System.getProperty("mayhem.record");
+        if (file == null) {
+            return;
+        }
+        try {
+            ReplayRecorder replay = new ReplayRecorder(Paths.get(file), simulation, seed, GameSimulation.TICKS_PER_SECOND * 10);
+            recorder = replay;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    replay.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, "Replay writer"));
+        } catch (IOException e) {
+            e.printStackTrace(); // Play on without recording
+        }
+    }
+
+    // Start loading every asset in parallel; nothing here waits for them
+    private void requestAssets() {
+        for (String image : PlayfieldRenderer.IMAGES) {
+            assets.image(image);
+        }
+        assets.image(HEART_IMAGE);
+        for (String sound : new String[]{EXPLOSION_SOUND, SHOOT_SOUND, WIN_SOUND, LOSE_SOUND}) {
+            assets.sound(sound);
+        }
+    }
+
+    // Runs once on the game loop thread when the last asset has finished loading
+    private void onAssetsLoaded() {
+        initializeSprites();
+        initializeSounds();
+        try {
+            music.start();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        playBackgroundMusic();
+        assetsReady = true;
+
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        System.out.printf("Loaded %d assets in %d ms; ready %d ms after launch%n",
+                assets.getRequestedCount(), assets.getLoadMillis(), uptime);
+    }
+
+    private Animation loadedImage(String path) {
+        return assets.image(path).exceptionally(e -> {
+            e.printStackTrace();
+            return MISSING_IMAGE;
+        }).join();
+    }
+
+    // Passive rendering: a Swing Timer drives the game loop and repaint() draws the frame
+    public void startPassiveLoop() {
+        timer = new Timer(16, this); // Approximately 60 FPS
+        timer.start();
+    }
+
+    // Register every image at the size it is drawn on screen
+    private void initializeSprites() {
+        playfield = new PlayfieldRenderer(sprites, SCREEN_WIDTH, SCREEN_HEIGHT, this::loadedImage);
+        heartImage = loadedImage(HEART_IMAGE).frame(0);
+
+        // Display mode or screen changes invalidate the compatible images
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.DISPLAYABILITY_CHANGED) != 0) {
+                sprites.invalidateAll();
+            }
+        });
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                sprites.invalidateAll();
+            }
+        });
+    }
+
+    private void initializeSounds() {
+        // Effects are already decoded by the asset manager
+        explosionSound = loadedSound(EXPLOSION_SOUND);
+        shootSound = loadedSound(SHOOT_SOUND);
+        winSound = loadedSound(WIN_SOUND);
+        loseSound = loadedSound(LOSE_SOUND);
+        try {
+            mixer.start();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return; // No reader for sound events, so the ring doesn't wait on one
+        }
+        EventRing.Consumer audioEvents = events.lossyConsumer("audio"); // Late sound effects are no use anyway
+        EventRing.Handler soundHandler = this::playEventSound;
+        mixer.setFeeder(() -> audioEvents.poll(soundHandler));
+    }
+
+    private int loadedSound(String path) {
+        try {
+            return mixer.add(assets.sound(path).join());
+        } catch (CompletionException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    // Simulation listener: only records the event, the consumers react to it later
+    private void publishEvent(int event, int x, int y) {
+        events.publish(event, x, y, simulation.getTick());
+    }
+
+    // Handle this thread's share of the events published since the last call
+    private void dispatchEvents() {
+        long start = System.nanoTime();
+        loopEvents.poll(loopHandler);
+        profiler.add(FrameProfiler.EVENTS, System.nanoTime() - start);
+    }
+
+    private void onLoopEvent(int event, int x, int y, long tick) {
+        emitParticles(event, x, y);
+        if (event == GameSimulation.EVENT_GAME_WON || event == GameSimulation.EVENT_GAME_LOST) {
+            submitScore();
+        }
+    }
+
+    // Map simulation events to sound effects; runs on the mixer thread
+    private void playEventSound(int event, int x, int y, long tick) {
+        switch (event) {
+            case GameSimulation.EVENT_SHOT_FIRED:
+                playSound(shootSound, 0.7f);
+                break;
+            case GameSimulation.EVENT_ALIEN_DESTROYED:
+            case GameSimulation.EVENT_MOTHERSHIP_HIT:
+            case GameSimulation.EVENT_PLAYER_HIT:
+                playSound(explosionSound, 1f);
+                break;
+            case GameSimulation.EVENT_GAME_WON:
+                playSound(winSound, 1f);
+                break;
+            case GameSimulation.EVENT_GAME_LOST:
+                playSound(loseSound, 1f);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Overlay lines for the event ring and the stats thread
+    private String[] eventSummary() {
+        return new String[]{
+                String.format("events %d/%d queued  %d lost  %d skipped", events.depth(), events.getHighWaterMark(),
+                        events.getDropped(), events.getSkipped()),
+                String.format("kills %d  hits %d  levels %d", stats.count(GameSimulation.EVENT_ALIEN_DESTROYED),
+                        stats.count(GameSimulation.EVENT_PLAYER_HIT), stats.count(GameSimulation.EVENT_LEVEL_CLEARED))
+        };
+    }
+
+    // Queue the finished game for the score log; the disk write happens on its own thread
+    private void submitScore() {
+        if (!scoreSubmitted) {
+            scoreSubmitted = true;
+            scores.submit(System.currentTimeMillis(), simulation.getScore(), simulation.getCurrentLevel(),
+                    (int) simulation.getTick(), simulation.isGameWon());
+        }
+    }
+
+    // Map simulation events to particle effects
+    private void emitParticles(int event, int x, int y) {
+        switch (event) {
+            case GameSimulation.EVENT_SHOT_FIRED:
+                particles.burst(ParticleSystem.SPARK, x, y, 6, 2, 10);
+                break;
+            case GameSimulation.EVENT_ALIEN_DESTROYED:
+                particles.burst(ParticleSystem.SPARK, x, y, 80, 8, 40);
+                particles.burst(ParticleSystem.DEBRIS, x, y, 24, 5, 60);
+                break;
+            case GameSimulation.EVENT_MOTHERSHIP_HIT:
+                particles.burst(ParticleSystem.SPARK, x, y, 30, 6, 25);
+                break;
+            case GameSimulation.EVENT_PLAYER_HIT:
+                particles.burst(ParticleSystem.SPARK, x, y, 60, 7, 35);
+                particles.burst(ParticleSystem.DEBRIS, x, y, 20, 4, 50);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // One particle tick: a puff of exhaust under every jet, then move everything
+    private void tickParticles() {
+        int y = simulation.getJetY() + GameSimulation.JET_HEIGHT - 10;
+        for (int p = 0; p < simulation.getPlayers(); p++) {
+            int x = simulation.getJetX(p) + GameSimulation.JET_WIDTH / 2;
+            particles.exhaust(x, y, simulation.getJetVelocity(p));
+            particles.exhaust(x, y, simulation.getJetVelocity(p));
+        }
+        particles.update();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        render(g, clock.alpha());
+    }
+
+    // Draw one frame; alpha is how far we are into the next tick, used to extrapolate motion
+    public void render(Graphics g, float alpha) {
+        long start = System.nanoTime();
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        // A volatile back buffer can lose its contents at any time; draw again until it holds
+        do {
+            Graphics bufferGraphics = prepareBackBuffer(gc);
+            try {
+                drawFrame(bufferGraphics, alpha);
+            } finally {
+                bufferGraphics.dispose();
+            }
+            present(g);
+        } while (backBuffer instanceof VolatileImage && ((VolatileImage) backBuffer).contentsLost());
+        profiler.add(FrameProfiler.RENDER, System.nanoTime() - start);
+        profiler.endFrame(simulation.getAliens().size() + simulation.getShots().size()
+                + simulation.getMothershipShots().size(), simulation.getTick());
+        if (overlayVisible) {
+            profiler.drawOverlay(g, targetWidth() - 440, 20); // At window resolution, so it stays legible
+        }
+    }
+
+    private Graphics prepareBackBuffer(GraphicsConfiguration gc) {
+        int width = Math.round(SCREEN_WIDTH * renderScale), height = Math.round(SCREEN_HEIGHT * renderScale);
+        if (gc == null) {
+            if (!(backBuffer instanceof BufferedImage)) {
+                backBuffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            }
+        } else {
+            VolatileImage buffer = backBuffer instanceof VolatileImage ? (VolatileImage) backBuffer : null;
+            if (buffer == null || buffer.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if (buffer != null) {
+                    buffer.flush();
+                }
+                backBuffer = gc.createCompatibleVolatileImage(width, height, Transparency.OPAQUE);
+            }
+        }
+        return backBuffer.getGraphics();
+    }
+
+    // The one scaling pass: fit the back buffer to the window, centered, with black bars
+    // where the aspect ratios differ
+    private void present(Graphics g) {
+        int targetWidth = targetWidth(), targetHeight = targetHeight();
+        float fit = Math.min(targetWidth / (float) SCREEN_WIDTH, targetHeight / (float) SCREEN_HEIGHT);
+        int width = Math.round(SCREEN_WIDTH * fit), height = Math.round(SCREEN_HEIGHT * fit);
+        int x = (targetWidth - width) / 2, y = (targetHeight - height) / 2;
+        if (x > 0 || y > 0) {
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, targetWidth, y);
+            g.fillRect(0, y + height, targetWidth, targetHeight - y - height);
+            g.fillRect(0, y, x, height);
+            g.fillRect(x + width, y, targetWidth - x - width, height);
+        }
+        if (width == backBuffer.getWidth(null) && height == backBuffer.getHeight(null)) {
+            g.drawImage(backBuffer, x, y, null);
+        } else {
+            ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_INTERPOLATION, SCALING);
+            g.drawImage(backBuffer, x, y, width, height, null);
+        }
+    }
+
+    // Window size, or the logical size when rendering offscreen
+    private int targetWidth() {
+        return getWidth() > 0 ? getWidth() : SCREEN_WIDTH;
+    }
+
+    private int targetHeight() {
+        return getHeight() > 0 ? getHeight() : SCREEN_HEIGHT;
+    }
+
+    // Draws in back buffer pixels: sprites and cached layers scale their own positions,
+    // anything else draws through logical()
+    private void drawFrame(Graphics g, float alpha) {
+        if (!assetsReady) {
+            Graphics logical = logical(g);
+            paintLoading(logical);
+            logical.dispose();
+            return;
+        }
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        sprites.validate(gc);
+
+        // Static screens are one cached image, repainted only when the screen changes
+        int screen = currentScreen();
+        if (screen != SCREEN_PLAYING) {
+            if (screen != layerScreen || (screen == SCREEN_TITLE && scores.top() != layerScores)) {
+                layerScreen = screen;
+                screenLayer.invalidate();
+            }
+            screenLayer.draw(g, gc, 0, 0);
+            return;
+        }
+
+        // Draw background
+        playfield.drawBackground(g);
+
+        // Game Elements
+        // Draw jets
+        // A jet follows unpredictable input, so blend from its previous position instead of overshooting.
+        // In co-op the client knows where each one goes, and snapshots arrive every few ticks.
+        long now = System.nanoTime();
+        long tick = simulation.getTick();
+        float tickAlpha = alpha;
+        if (coop != null) {
+            alpha = coop.ticksSinceSnapshot(now);
+        }
+        for (int p = 0; p < simulation.getPlayers(); p++) {
+            int jetX = coop != null ? coop.jetX(p, now)
+                    : PlayfieldRenderer.extrapolate(simulation.getPrevJetX(p), simulation.getJetX(p) - simulation.getPrevJetX(p), alpha);
+            playfield.drawJet(g, jetX, simulation.getJetY(), tick);
+        }
+
+        // Aliens, shots and the mothership
+        playfield.drawEntities(g, simulation, alpha);
+
+        // Particles go over everything but the HUD, grouped by colour
+        Graphics logical = logical(g);
+        particles.render(logical, tickAlpha);
+        logical.dispose();
+
+        // Score and hearts are cached and repainted only when they change
+        if (simulation.getScore() != hudScore || simulation.getHearts() != hudHearts) {
+            hudScore = simulation.getScore();
+            hudHearts = simulation.getHearts();
+            hudLayer.invalidate();
+        }
+        hudLayer.draw(g, gc, 0, 0);
+    }
+
+    // A copy of the back buffer's graphics that draws in logical pixels; dispose it after use
+    private Graphics logical(Graphics g) {
+        Graphics2D logical = (Graphics2D) g.create();
+        logical.scale(renderScale, renderScale);
+        return logical;
+    }
+
+    // Title and a progress bar while the assets load
+    private void paintLoading(Graphics g) {
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
+
+        g.setFont(TITLE_FONT);
+        g.setColor(Color.WHITE);
+        String title = "Mothership Mayhem";
+        g.drawString(title, (SCREEN_WIDTH - g.getFontMetrics().stringWidth(title)) / 2, SCREEN_HEIGHT / 2 - 100);
+
+        int barWidth = SCREEN_WIDTH / 3, barX = (SCREEN_WIDTH - barWidth) / 2, barY = SCREEN_HEIGHT / 2;
+        g.drawRect(barX, barY, barWidth, 20);
+        g.fillRect(barX, barY, (int) (barWidth * assets.progress()), 20);
+    }
+
+    private int currentScreen() {
+        if (titleScreen) {
+            return SCREEN_TITLE;
+        } else if (instructionScreen) {
+            return SCREEN_INSTRUCTIONS;
+        } else if (simulation.isGameOver()) {
+            return simulation.isGameWon() ? SCREEN_WON : SCREEN_LOST;
+        }
+        return SCREEN_PLAYING;
+    }
+
+    // Paint the background and text of the current static screen into the screen layer
+    private void paintScreen(Graphics2D g) {
+        playfield.drawBackground(g);
+
+        if (layerScreen == SCREEN_TITLE) {
+            // Title
+            g.setFont(TITLE_FONT);
+            FontMetrics fm = g.getFontMetrics();
+            String title = "Mothership Mayhem";
+            int titleX = (SCREEN_WIDTH - fm.stringWidth(title)) / 2;
+            int titleY = SCREEN_HEIGHT / 2 - 100;
+            g.setColor(Color.WHITE);
+            g.drawString(title, titleX, titleY);
+
+            // Press Enter to Start
+            g.setFont(PROMPT_FONT);
+            String prompt = "Press Enter to Start";
+            int promptX = (SCREEN_WIDTH - fm.stringWidth(prompt)) / 2;
+            int promptY = SCREEN_HEIGHT / 2;
+            g.drawString(prompt, promptX, promptY);
+
+            // Press 'I' for Instructions (Centered)
+            String instructionsPrompt = "Press 'I' then 'Enter' for Instructions";
+            int instructionsPromptX = (SCREEN_WIDTH - fm.stringWidth(instructionsPrompt)) / 2 + 380;
+            int instructionsPromptY = SCREEN_HEIGHT / 2 + 100;
+            g.drawString(instructionsPrompt, instructionsPromptX, instructionsPromptY);
+
+            // High scores
+            layerScores = scores.top();
+            g.setFont(TEXT_FONT);
+            fm = g.getFontMetrics();
+            int scoresY = SCREEN_HEIGHT / 2 + 200;
+            for (int i = 0; i < Math.min(HIGH_SCORES_SHOWN, layerScores.size()); i++) {
+                String line = (i + 1) + ".  " + layerScores.score(i) + "  "
+                        + (layerScores.won(i) ? "won" : "level " + layerScores.level(i));
+                g.drawString(line, (SCREEN_WIDTH - fm.stringWidth(line)) / 2, scoresY + i * 50);
+            }
+
+        } else if (layerScreen == SCREEN_INSTRUCTIONS) {
+            // Instructions Screen
+            g.setFont(HEADING_FONT);
+            g.setColor(Color.CYAN);
+            String instructionsTitle = "Instructions";
+            FontMetrics fmTitle = g.getFontMetrics();
+            int titleX = (SCREEN_WIDTH - fmTitle.stringWidth(instructionsTitle)) / 2;
+            int titleY = 100;
+            g.drawString(instructionsTitle, titleX, titleY);
+
+            g.setFont(TEXT_FONT);
+            g.setColor(Color.WHITE);
+            int lineHeight = 50;
+            int startY = 200;
+            g.drawString("1. Move the jet with LEFT and RIGHT arrow keys.", 100, startY);
+            g.drawString("2. Shoot with SPACE to destroy aliens.", 100, startY + lineHeight);
+            g.drawString("3. Avoid the mothership projectiles.", 100, startY + 2 * lineHeight);
+            g.drawString("4. Destroy the mothership with 30 hits.", 100, startY + 3 * lineHeight);
+            g.drawString("5. Survive to win the game.", 100, startY + 4 * lineHeight);
+            g.drawString("6. Hold R to rewind; F5 saves the game and F9 resumes it.", 100, startY + 5 * lineHeight);
+            g.drawString("Press Backspace to Return and Esc to exit the game", 100, startY + 6 * lineHeight);
+
+        } else {
+            // Game Over or Win Screen
+            g.setFont(MESSAGE_FONT);
+            FontMetrics fm = g.getFontMetrics();
+            String message = layerScreen == SCREEN_WON ? "You Win!" : "You Lose!";
+            int messageX = (SCREEN_WIDTH - fm.stringWidth(message)) / 2;
+            int messageY = SCREEN_HEIGHT / 2 - 50;
+            g.setColor(Color.YELLOW);
+            g.drawString(message, messageX, messageY);
+
+            // Press Backspace to Play Again
+            String restartPrompt = "Press Backspace to Play Again or Esc to exit";
+            g.setFont(PROMPT_FONT);
+            fm = g.getFontMetrics();
+            int promptX = (SCREEN_WIDTH - fm.stringWidth(restartPrompt)) / 2;
+            int promptY = SCREEN_HEIGHT / 2 + 50;
+            g.setColor(Color.WHITE);
+            g.drawString(restartPrompt, promptX, promptY);
+        }
+    }
+
+    // Paint score and hearts into the HUD layer
+    private void paintHud(Graphics2D g) {
+        // Draw Score
+        g.setColor(Color.WHITE);
+        g.setFont(TEXT_FONT);
+        g.drawString("Score: " + hudScore, 20, 50);
+
+        // Draw Hearts (Lives)
+        for (int i = 0; i < hudHearts; i++) {
+            g.drawImage(heartImage, 20 + i * 50, 60, 40, 40, null); // Draw heart images
+        }
+    }
+
+    // Game Loop: run as many fixed ticks as real time requires
+    public void update(long now) {
+        profiler.beginFrame();
+        if (!assetsReady) {
+            if (!assets.isDone()) {
+                return;
+            }
+            onAssetsLoaded();
+        }
+        long start = System.nanoTime();
+        if (resetRequested) {
+            resetRequested = false;
+            resetGame();
+        }
+        if (saveRequested) {
+            saveRequested = false;
+            saveGame();
+        }
+        if (loadRequested) {
+            loadRequested = false;
+            loadGame();
+        }
+        int steps = clock.advance(now);
+        long stepStart = System.nanoTime();
+        profiler.add(FrameProfiler.INPUT, stepStart - start);
+        if (!titleScreen && !instructionScreen) {
+            for (int i = 0; i < steps; i++) {
+                int inputs = input.sample(); // Keys held during this tick
+                tickParticles();
+                if (coop != null) {
+                    sendInput(inputs & ~INPUT_REWIND);
+                    continue;
+                }
+                if ((inputs & INPUT_REWIND) != 0 && canRewriteHistory()) {
+                    history.rewind(simulation, 1); // One tick back for every tick R is held
+                    continue;
+                }
+                simulation.step(inputs & ~INPUT_REWIND);
+                dispatchEvents(); // Particles burst on the tick they belong to
+                history.record(simulation);
+                if (recorder != null) {
+                    recorder.recordStep(inputs & ~INPUT_REWIND);
+                }
+            }
+            pollServer();
+            long collision = simulation.takeCollisionNanos();
+            profiler.add(FrameProfiler.COLLISION, collision);
+            profiler.add(FrameProfiler.UPDATE, System.nanoTime() - stepStart - collision);
+            if (simulation.getCurrentLevel() != musicLevel) {
+                musicLevel = simulation.getCurrentLevel();
+                music.play(musicForLevel(musicLevel), MUSIC_FADE_MILLIS);
+            }
+        }
+    }
+
+    // Co-op: the server steps the simulation, we only send our inputs and apply its snapshots.
+    // If the connection drops the game carries on locally from the last snapshot.
+    private void sendInput(int inputs) {
+        try {
+            coop.sendInput(inputs);
+        } catch (IOException e) {
+            disconnect(e);
+        }
+    }
+
+    private void pollServer() {
+        if (coop == null) {
+            return;
+        }
+        try {
+            coop.poll();
+        } catch (IOException | RuntimeException e) {
+            disconnect(e);
+        }
+    }
+
+    private void disconnect(Exception cause) {
+        cause.printStackTrace();
+        try {
+            coop.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+        coop = null;
+    }
+
+    // Write the current game to the save file
+    private void saveGame() {
+        ByteBuffer snapshot = ByteBuffer.allocate(simulation.snapshotSize());
+        simulation.writeSnapshot(snapshot);
+        try {
+            Files.write(SAVE_FILE, snapshot.array());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Resume the game in the save file, if there is a usable one
+    private void loadGame() {
+        try {
+            simulation.readSnapshot(ByteBuffer.wrap(Files.readAllBytes(SAVE_FILE)));
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace(); // Missing or for another screen size; a half-read snapshot is reset below
+            simulation.reset();
+            return;
+        } finally {
+            history.clear();
+            particles.clear();
+            scoreSubmitted = false;
+        }
+        titleScreen = false;
+        instructionScreen = false;
+    }
+
+    public boolean isAssetsReady() {
+        return assetsReady;
+    }
+
+    public GameSimulation getSimulation() {
+        return simulation;
+    }
+
+    public float getInterpolation() {
+        return clock.alpha();
+    }
+
+    // Passive loop tick from the Swing Timer
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        update(System.nanoTime());
+        repaint(); // Redraw the screen
+    }
+
+    // Play Background Music for level 1 from the start
+    private void playBackgroundMusic() {
+        musicLevel = 1;
+        music.playFromStart(musicForLevel(1), 0);
+    }
+
+    private static String musicForLevel(int level) {
+        return LEVEL_MUSIC[Math.min(level, LEVEL_MUSIC.length) - 1];
+    }
+
+    // Play Specific Sound; never blocks, the mixer thread picks it up
+    private void playSound(int sound, float gain) {
+        if (sound >= 0) {
+            mixer.trigger(sound, gain);
+        }
+    }
+
+    // Key Events Handling
+    @Override
+    public void keyPressed(KeyEvent e) {
+        int key = e.getKeyCode();
+
+        if (key == KeyEvent.VK_F3) { // Toggle the frame timing overlay
+            overlayVisible = !overlayVisible;
+            return;
+        }
+        if (!assetsReady && key != KeyEvent.VK_ESCAPE) {
+            return; // Still loading
+        }
+        if (key == KeyEvent.VK_F9 && canRewriteHistory()) { // Resume the saved game from any screen
+            loadRequested = true;
+            return;
+        }
+        if (titleScreen) {
+            if (key == KeyEvent.VK_ENTER) {
+                titleScreen = false;
+            } else if (key == KeyEvent.VK_I) { // Press 'I' for Instructions
+                instructionScreen = true;
+            }
+        } else if (instructionScreen) {
+            if (key == KeyEvent.VK_BACK_SPACE) { // Press Backspace to Return
+                instructionScreen = false;
+            }
+        } else if (!simulation.isGameOver()) {
+            // Gameplay Controls: recorded here, sampled by the simulation every tick. OS key
+            // repeats only re-press a key that is already down, so they change nothing.
+            int bit = inputBit(key);
+            if (bit != 0) {
+                input.press(bit);
+            } else if (key == KeyEvent.VK_F5 && canRewriteHistory()) {
+                saveRequested = true;
+            }
+        }
+
+        if (simulation.isGameOver() && key == KeyEvent.VK_BACK_SPACE) {
+            // Restart the game on the game loop's thread
+            resetRequested = true;
+        }
+
+        // Exit Strategy: Press Esc to Exit the Game
+        if (key == KeyEvent.VK_ESCAPE) {
+            // Stop all sounds before exiting
+            stopAllSounds();
+            System.exit(0);
+        }
+    }
+
+    private static int inputBit(int key) {
+        switch (key) {
+            case KeyEvent.VK_LEFT:
+                return GameSimulation.INPUT_LEFT;
+            case KeyEvent.VK_RIGHT:
+                return GameSimulation.INPUT_RIGHT;
+            case KeyEvent.VK_SPACE:
+                return GameSimulation.INPUT_FIRE;
+            case KeyEvent.VK_R:
+                return INPUT_REWIND;
+            default:
+                return 0;
+        }
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+        // Always recorded, so a key let go on another screen doesn't stay held
+        int bit = inputBit(e.getKeyCode());
+        if (bit != 0) {
+            input.release(bit);
+        }
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {
+        // No action needed on key typed
+    }
+
+    // Reset the Game to Initial State
+    private void resetGame() {
+        titleScreen = true;
+        instructionScreen = false;
+        input.releaseAll();
+        simulation.reset();
+        scoreSubmitted = false;
+        particles.clear();
+        if (recorder != null) {
+            recorder.recordReset();
+        }
+        playBackgroundMusic();
+    }
+
+    // Stop all sounds when exiting
+    private void stopAllSounds() {
+        try {
+            music.close();
+            mixer.close();
+            stats.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Main Method to Launch the Game
+    // -Dmayhem.render=passive falls back to Timer + repaint();
+    // -Dmayhem.vsync=true and -Dmayhem.fpsCap=N tune the active render loop (default cap: display refresh rate)
+    public static void main(String[] args) {
+        boolean passive = "passive".equalsIgnoreCase(System.getProperty("mayhem.render", "active"));
+        boolean vsync = Boolean.getBoolean("mayhem.vsync");
+
+        SwingUtilities.invokeLater(() -> {
+            JFrame frame = new JFrame("Mothership Mayhem");
+            MothershipMayhemGame gamePanel = new MothershipMayhemGame();
+            frame.add(gamePanel);
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            frame.setResizable(false); // Prevent window resizing to maintain boundary checks
+
+            // Set to full-screen mode
+            frame.setExtendedState(JFrame.MAXIMIZED_BOTH);
+            frame.setUndecorated(true);
+            frame.setVisible(true);
+
+            // Ensure the game panel takes the full screen
+            gamePanel.setPreferredSize(Toolkit.getDefaultToolkit().getScreenSize());
+            frame.pack();
+
+            if (passive) {
+                gamePanel.startPassiveLoop();
+                return;
+            }
+            try {
+                gamePanel.setIgnoreRepaint(true);
+                new ActiveRenderLoop(frame, gamePanel, vsync, Integer.getInteger("mayhem.fpsCap", refreshRate(frame))).start();
+            } catch (RuntimeException e) {
+                // No usable buffer strategy on this display: fall back to passive rendering
+                e.printStackTrace();
+                frame.setIgnoreRepaint(false);
+                gamePanel.setIgnoreRepaint(false);
+                gamePanel.startPassiveLoop();
+            }
+        });
+    }
+
+    private static int refreshRate(Window window) {
+        int rate = window.getGraphicsConfiguration().getDevice().getDisplayMode().getRefreshRate();
+        return rate != DisplayMode.REFRESH_RATE_UNKNOWN ? rate : 60;
+    }
+}
@@ -0,0 +1,229 @@
+package mayhem;
+
+import javax.sound.sampled.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Streams background music from disk in fixed-size chunks to its own SourceDataLine.
+// Memory stays at a few chunk buffers however long the track is. Tracks loop without
+// a gap (the next pass is read into the same chunk as the end of the last one), and
+// switching tracks crossfades the old stream into the new one.
+public class MusicStreamer implements Runnable {
+    private static final int CHUNK_FRAMES = 4096; // ~93 ms per chunk
+    private static final int FRAME_BYTES = 4;
+    private static final int CHUNK_BYTES = CHUNK_FRAMES * FRAME_BYTES;
+
+    private static final class Request {
+        final String track;
+        final int fadeFrames;
+        final boolean fromStart; // Reopen even if the track is already playing
+
+        Request(String track, int fadeFrames, boolean fromStart) {
+            this.track = track;
+            this.fadeFrames = fadeFrames;
+            this.fromStart = fromStart;
+        }
+    }
+
+    private final AtomicReference<Request> pending = new AtomicReference<>();
+    private volatile boolean running = false;
+    private volatile float volume = 1f;
+    private SourceDataLine line;
+    private Thread thread;
+
+    // Streaming state; only touched by the streaming thread
+    private final byte[] current = new byte[CHUNK_BYTES];
+    private final byte[] incoming = new byte[CHUNK_BYTES];
+    private final byte[] out = new byte[CHUNK_BYTES];
+    private String track, fadeTrack;
+    private AudioInputStream stream, fadeStream;
+    private int fadeFrames, fadePosition;
+
+    public void start() throws LineUnavailableException {
+        line = AudioSystem.getSourceDataLine(AudioMixer.FORMAT);
+        line.open(AudioMixer.FORMAT, CHUNK_BYTES * 2);
+        line.start();
+        running = true;
+        thread = new Thread(this, "Music streamer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Switch to a track, crossfading over fadeMillis; a no-op if it is already playing
+    public void play(String path, int fadeMillis) {
+        pending.set(new Request(path, toFrames(fadeMillis), false));
+    }
+
+    // Play a track from its beginning, even if it is the one already playing
+    public void playFromStart(String path, int fadeMillis) {
+        pending.set(new Request(path, toFrames(fadeMillis), true));
+    }
+
+    public void setVolume(float volume) {
+        this.volume = volume;
+    }
+
+    public void close() {
+        running = false;
+        if (thread != null) {
+            try {
+                thread.join(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (line != null) {
+            line.stop();
+            line.close();
+        }
+        closeQuietly(stream);
+        closeQuietly(fadeStream);
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            Request request = pending.getAndSet(null);
+            if (request != null) {
+                apply(request);
+            }
+            if (stream == null) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                continue;
+            }
+
+            stream = fill(stream, track, current);
+            if (fadeStream == null) {
+                scale(current, volume, out);
+            } else {
+                fadeStream = fill(fadeStream, fadeTrack, incoming);
+                crossfade();
+            }
+            line.write(out, 0, CHUNK_BYTES); // Blocks while the line is full, pacing the thread
+        }
+    }
+
+    private void apply(Request request) {
+        String path = request.track;
+        if (!request.fromStart && path.equals(track) && fadeStream == null) {
+            return;
+        }
+        if (fadeStream != null) {
+            // A fade was still running: jump to its end before starting the next one
+            closeQuietly(stream);
+            stream = fadeStream;
+            track = fadeTrack;
+            fadeStream = null;
+        }
+        AudioInputStream next = open(path);
+        if (stream == null || request.fadeFrames == 0) {
+            closeQuietly(stream);
+            stream = next;
+            track = path;
+        } else {
+            fadeStream = next;
+            fadeTrack = path;
+            fadeFrames = request.fadeFrames;
+            fadePosition = 0;
+        }
+    }
+
+    // Mix current (fading out) and incoming (fading in) into out
+    private void crossfade() {
+        float v = volume;
+        for (int frame = 0; frame < CHUNK_FRAMES; frame++) {
+            float t = Math.min(1f, (float) (fadePosition + frame) / fadeFrames);
+            for (int channel = 0; channel < 2; channel++) {
+                int i = (frame * 2 + channel) * 2;
+                int mixed = (int) ((sample(current, i) * (1f - t) + sample(incoming, i) * t) * v);
+                putSample(out, i, mixed);
+            }
+        }
+        fadePosition += CHUNK_FRAMES;
+        if (fadePosition >= fadeFrames) {
+            closeQuietly(stream);
+            stream = fadeStream;
+            track = fadeTrack;
+            fadeStream = null;
+        }
+    }
+
+    private static void scale(byte[] in, float gain, byte[] out) {
+        if (gain == 1f) {
+            System.arraycopy(in, 0, out, 0, in.length);
+            return;
+        }
+        for (int i = 0; i < in.length; i += 2) {
+            putSample(out, i, (int) (sample(in, i) * gain));
+        }
+    }
+
+    // Fill the whole buffer, reopening the track at its end so the loop is seamless
+    private AudioInputStream fill(AudioInputStream in, String path, byte[] buffer) {
+        int filled = 0;
+        boolean reopened = false;
+        while (filled < buffer.length && in != null) {
+            int n;
+            try {
+                n = in.read(buffer, filled, buffer.length - filled);
+            } catch (IOException e) {
+                e.printStackTrace();
+                n = -1;
+            }
+            if (n > 0) {
+                filled += n;
+                reopened = false;
+            } else if (n < 0) {
+                closeQuietly(in);
+                if (reopened) {
+                    in = null; // Track is empty or unreadable; give up on it
+                } else {
+                    in = open(path);
+                    reopened = true;
+                }
+            }
+        }
+        for (int i = filled; i < buffer.length; i++) {
+            buffer[i] = 0;
+        }
+        return in;
+    }
+
+    private static AudioInputStream open(String path) {
+        try {
+            return AudioMixer.toMixerFormat(AudioSystem.getAudioInputStream(new File(path)));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static int sample(byte[] b, int i) {
+        return (short) ((b[i] & 0xff) | (b[i + 1] << 8));
+    }
+
+    private static void putSample(byte[] b, int i, int sample) {
+        sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sample));
+        b[i] = (byte) sample;
+        b[i + 1] = (byte) (sample >> 8);
+    }
+
+    private static int toFrames(int millis) {
+        return (int) (AudioMixer.FORMAT.getFrameRate() * millis / 1000);
+    }
+
+    private static void closeQuietly(AudioInputStream in) {
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // Nothing useful to do
+            }
+        }
+    }
+}
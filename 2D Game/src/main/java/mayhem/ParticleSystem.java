@@ -0,0 +1,175 @@
+package mayhem;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.util.Arrays;
+
+// Visual-only particles: explosion sparks, falling debris and jet exhaust. They live in
+// fixed-capacity parallel arrays, like ProjectilePool, so emitting one never allocates and
+// a full system drops new particles rather than growing. One loop moves them all and
+// swaps expired ones out; drawing sorts them by colour first so each colour is set once.
+// They use their own random generator, never the simulation's, so replays are unaffected.
+public final class ParticleSystem {
+    public static final int SPARK = 0;
+    public static final int DEBRIS = 1;
+    public static final int EXHAUST = 2;
+    private static final int KINDS = 3;
+
+    // Per kind: pixels per tick^2 downwards, velocity kept per tick, square size in pixels
+    private static final float[] GRAVITY = {0.05f, 0.3f, -0.02f};
+    private static final float[] DRAG = {0.93f, 0.99f, 0.9f};
+    private static final int[] SIZE = {3, 5, 4};
+
+    // Particles fade through SHADES colours per kind as their life runs out, brightest first
+    private static final int SHADES = 4;
+    private static final Color[] COLORS = {
+            new Color(255, 255, 200), new Color(255, 220, 90), new Color(255, 140, 40), new Color(200, 60, 20),
+            new Color(190, 190, 190), new Color(150, 150, 150), new Color(110, 110, 110), new Color(70, 70, 70),
+            new Color(200, 240, 255), new Color(120, 190, 255), new Color(60, 120, 230), new Color(40, 60, 160),
+    };
+
+    private final float[] x, y, vx, vy;
+    private final short[] life, lifetime; // Ticks left and ticks in total
+    private final byte[] kind;
+    private int count = 0;
+    private long dropped = 0;
+    private int random = 0x2545F491; // xorshift32 state
+
+    // Scratch space for sorting by colour when drawing
+    private final int[] order;
+    private final int[] bucketStart = new int[KINDS * SHADES + 1];
+    private final int[] bucketEnd = new int[KINDS * SHADES];
+
+    public ParticleSystem(int capacity) {
+        x = new float[capacity];
+        y = new float[capacity];
+        vx = new float[capacity];
+        vy = new float[capacity];
+        life = new short[capacity];
+        lifetime = new short[capacity];
+        kind = new byte[capacity];
+        order = new int[capacity];
+    }
+
+    // Add one particle living the given number of ticks; dropped if the system is full
+    public void emit(int kind, float x, float y, float vx, float vy, int ticks) {
+        if (count == this.x.length || ticks <= 0) {
+            dropped++;
+            return;
+        }
+        int i = count++;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.vx[i] = vx;
+        this.vy[i] = vy;
+        this.life[i] = (short) Math.min(ticks, Short.MAX_VALUE);
+        this.lifetime[i] = this.life[i];
+        this.kind[i] = (byte) kind;
+    }
+
+    // n particles flying out from a point in random directions at up to speed px/tick,
+    // each living between half and all of the given ticks
+    public void burst(int kind, float x, float y, int n, float speed, int ticks) {
+        for (int k = 0; k < n; k++) {
+            float angle = nextFloat() * (float) (2 * Math.PI);
+            float v = speed * (0.2f + 0.8f * nextFloat());
+            emit(kind, x, y, v * (float) Math.cos(angle), v * (float) Math.sin(angle),
+                    ticks / 2 + (int) (nextFloat() * (ticks / 2 + 1)));
+        }
+    }
+
+    // Exhaust puff below a jet; it trails the jet's sideways motion
+    public void exhaust(float x, float y, float jetVelocity) {
+        emit(EXHAUST, x + (nextFloat() - 0.5f) * 12, y, (nextFloat() - 0.5f) - jetVelocity * 0.3f,
+                3 + nextFloat() * 3, 12 + (int) (nextFloat() * 8));
+    }
+
+    // Advance every particle one tick and remove the expired ones
+    public void update() {
+        int n = count;
+        // Backwards, so the particle swapped into a freed slot has already been moved
+        for (int i = n - 1; i >= 0; i--) {
+            if (--life[i] <= 0) {
+                int last = --n;
+                x[i] = x[last];
+                y[i] = y[last];
+                vx[i] = vx[last];
+                vy[i] = vy[last];
+                life[i] = life[last];
+                lifetime[i] = lifetime[last];
+                kind[i] = kind[last];
+                continue;
+            }
+            int k = kind[i];
+            x[i] += vx[i];
+            y[i] += vy[i];
+            vx[i] *= DRAG[k];
+            vy[i] = vy[i] * DRAG[k] + GRAVITY[k];
+        }
+        count = n;
+    }
+
+    // Draw every particle, extrapolated alpha ticks ahead
+    public void render(Graphics g, float alpha) {
+        int n = count;
+        if (n == 0) {
+            return;
+        }
+        // Counting sort of the indices by colour
+        Arrays.fill(bucketStart, 0);
+        for (int i = 0; i < n; i++) {
+            bucketStart[bucket(i) + 1]++;
+        }
+        for (int b = 0; b < bucketEnd.length; b++) {
+            bucketStart[b + 1] += bucketStart[b];
+            bucketEnd[b] = bucketStart[b];
+        }
+        for (int i = 0; i < n; i++) {
+            order[bucketEnd[bucket(i)]++] = i;
+        }
+
+        for (int b = 0; b < bucketEnd.length; b++) {
+            if (bucketStart[b] == bucketEnd[b]) {
+                continue;
+            }
+            g.setColor(COLORS[b]);
+            int size = SIZE[b / SHADES];
+            int half = size / 2;
+            for (int k = bucketStart[b]; k < bucketEnd[b]; k++) {
+                int i = order[k];
+                g.fillRect((int) (x[i] + vx[i] * alpha) - half, (int) (y[i] + vy[i] * alpha) - half, size, size);
+            }
+        }
+    }
+
+    private int bucket(int i) {
+        int shade = SHADES - 1 - (life[i] * SHADES - 1) / lifetime[i];
+        return kind[i] * SHADES + shade;
+    }
+
+    private float nextFloat() {
+        int r = random;
+        r ^= r << 13;
+        r ^= r >>> 17;
+        r ^= r << 5;
+        random = r;
+        return (r >>> 8) * 0x1.0p-24f;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return x.length;
+    }
+
+    // Particles not emitted because the system was full
+    public long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,75 @@
+package mayhem;
+
+import java.awt.*;
+import java.util.function.Function;
+
+// Draws the play field of a simulation through a SpriteCache: the background, then the jets,
+// aliens, shots and mothership with its bullets. Moving entities are drawn part-way into the
+// next tick from their last velocity. Screens, particles and the HUD are the panel's job.
+public class PlayfieldRenderer {
+    public static final String JET_IMAGE = "gifs/spaceship-ezgif.com-video-to-gif-converter.gif";
+    public static final String ALIEN_IMAGE = "gifs/WhatsAppVideo2024-09-19at10.36.47-ezgif.com-video-to-gif-converter.gif";
+    public static final String MOTHERSHIP_IMAGE = "gifs/mothership.gif";
+    public static final String SHOT_IMAGE = "gifs/shooter-ezgif.com-video-to-gif-converter.gif";
+    public static final String BACKGROUND_IMAGE = "pictures/WhatsApp Image 2024-09-14 at 09.01.48.jpeg"; // Background photo
+    public static final String[] IMAGES = {BACKGROUND_IMAGE, JET_IMAGE, ALIEN_IMAGE, MOTHERSHIP_IMAGE, SHOT_IMAGE};
+
+    private final SpriteCache sprites;
+    private final int backgroundSprite, jetSprite, alienSprite, mothershipSprite, shotSprite;
+
+    // Register every image at the size it is drawn on a width x height field; images maps
+    // the paths above to loaded animations
+    public PlayfieldRenderer(SpriteCache sprites, int width, int height, Function<String, Animation> images) {
+        this.sprites = sprites;
+        backgroundSprite = sprites.register(images.apply(BACKGROUND_IMAGE), width, height, true);
+        jetSprite = sprites.register(images.apply(JET_IMAGE), GameSimulation.JET_WIDTH, GameSimulation.JET_HEIGHT, false);
+        alienSprite = sprites.register(images.apply(ALIEN_IMAGE), GameSimulation.ALIEN_WIDTH, GameSimulation.ALIEN_HEIGHT, false);
+        mothershipSprite = sprites.register(images.apply(MOTHERSHIP_IMAGE), GameSimulation.MOTHERSHIP_WIDTH, GameSimulation.MOTHERSHIP_HEIGHT, false);
+        shotSprite = sprites.register(images.apply(SHOT_IMAGE), GameSimulation.SHOT_WIDTH, GameSimulation.SHOT_HEIGHT, false);
+    }
+
+    public void drawBackground(Graphics g) {
+        sprites.draw(g, backgroundSprite, 0, 0);
+    }
+
+    // x is passed in because where a jet is drawn depends on who predicts it (see the panel)
+    public void drawJet(Graphics g, int x, int y, long tick) {
+        sprites.draw(g, jetSprite, x, y, tick);
+    }
+
+    // Everything the simulation moves on its own; alpha is how far we are into the next tick
+    public void drawEntities(Graphics g, GameSimulation simulation, float alpha) {
+        long tick = simulation.getTick();
+
+        // Draw Aliens
+        EntityStore aliens = simulation.getAliens();
+        for (int i = 0; i < aliens.size(); i++) {
+            sprites.draw(g, alienSprite, extrapolate(aliens.getX(i), aliens.getVx(i), alpha),
+                    extrapolate(aliens.getY(i), aliens.getVy(i), alpha), tick);
+        }
+
+        // Draw Player's Shots
+        EntityStore shots = simulation.getShots();
+        for (int i = 0; i < shots.size(); i++) {
+            sprites.draw(g, shotSprite, extrapolate(shots.getX(i), shots.getVx(i), alpha),
+                    extrapolate(shots.getY(i), shots.getVy(i), alpha), tick);
+        }
+
+        // Draw Mothership and its Shots
+        if (simulation.isMothershipExists()) {
+            int mothershipX = extrapolate(simulation.getMothershipX(),
+                    simulation.getMothershipX() - simulation.getPrevMothershipX(), alpha);
+            sprites.draw(g, mothershipSprite, mothershipX, GameSimulation.MOTHERSHIP_Y, tick);
+            EntityStore mothershipShots = simulation.getMothershipShots();
+            for (int i = 0; i < mothershipShots.size(); i++) {
+                sprites.draw(g, shotSprite, extrapolate(mothershipShots.getX(i), mothershipShots.getVx(i), alpha),
+                        extrapolate(mothershipShots.getY(i), mothershipShots.getVy(i), alpha), tick);
+            }
+        }
+    }
+
+    // Position part-way into the next tick, from the last tick's velocity
+    public static int extrapolate(int position, int velocity, float alpha) {
+        return position + (int) (velocity * alpha);
+    }
+}
@@ -0,0 +1,61 @@
+package mayhem;
+
+// Fixed-capacity entity store for projectiles. All slots are allocated up front and
+// never grow: when the pool is exhausted a new projectile is dropped instead.
+public class ProjectilePool extends EntityStore {
+    private long hits = 0; // Acquires that got a slot
+    private long misses = 0; // Acquires dropped because the pool was full
+    private int highWaterMark = 0;
+
+    public ProjectilePool(int capacity) {
+        super(capacity);
+    }
+
+    // Take a free slot and return its index, or -1 if the projectile was dropped
+    public int acquire(int x, int y, int vx, int vy, int type) {
+        if (size() == capacity()) {
+            misses++;
+            return -1;
+        }
+        hits++;
+        int i = super.add(x, y, vx, vy, type);
+        if (size() > highWaterMark) {
+            highWaterMark = size();
+        }
+        return i;
+    }
+
+    // Return slot i to the pool; the last projectile is moved into it
+    public void release(int i) {
+        remove(i);
+    }
+
+    @Override
+    public int add(int x, int y, int vx, int vy, int type) {
+        return acquire(x, y, vx, vy, type);
+    }
+
+    // A snapshot never makes the pool grow
+    @Override
+    protected int maxSize() {
+        return capacity();
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public void resetStats() {
+        hits = 0;
+        misses = 0;
+        highWaterMark = size();
+    }
+}
@@ -0,0 +1,145 @@
+package mayhem;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+// Plays a file written by ReplayRecorder through a fresh simulation as fast as possible,
+// checking the checksum at every checkpoint. The file is memory-mapped and decoded in place.
+// Exits with status 1 if the simulation diverges, so replays can serve as regression tests.
+// Usage: java [-Dmayhem.waves=FILE] [-Dmayhem.swarm=THREADS] ReplayPlayer replay-file
+public class ReplayPlayer {
+    private final MappedByteBuffer data;
+    private final GameSimulation simulation;
+    private long ticks = 0;
+    private int checkpoints = 0;
+    private long divergedAt = -1; // Tick count of the first failed checkpoint
+    private boolean complete = false; // Reached the end marker
+
+    public ReplayPlayer(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        if (data.remaining() < 4 || data.getInt() != ReplayRecorder.MAGIC) {
+            throw new IOException(file + " is not a replay");
+        }
+        short version = data.getShort();
+        if (version != ReplayRecorder.VERSION) {
+            throw new IOException(file + ": unsupported replay version " + version);
+        }
+        long seed = data.getLong();
+        int width = data.getInt();
+        int height = data.getInt();
+        long wavesChecksum = data.getLong();
+        int fireCooldown = data.getInt();
+        boolean endless = data.get() != 0;
+        int startingHearts = data.getInt();
+        int players = data.getInt();
+        data.getInt(); // Checkpoint interval; the checkpoints themselves say which tick they're for
+        if (startingHearts < 1 || players < 1) {
+            throw new IOException(file + ": bad header, " + startingHearts + " hearts and " + players + " players");
+        }
+
+        WaveTable waves = WaveTable.load();
+        if (waves.checksum() != wavesChecksum) {
+            throw new IOException(file + " was recorded with different levels; pass the same -Dmayhem.waves");
+        }
+        simulation = new GameSimulation(width, height, waves, players);
+        simulation.setStartingHearts(startingHearts);
+        simulation.reset(); // Takes the hearts; draws nothing from the seed
+        simulation.setSeed(seed);
+        simulation.setFireCooldownTicks(fireCooldown);
+        simulation.setEndless(endless);
+    }
+
+    public GameSimulation getSimulation() {
+        return simulation;
+    }
+
+    // Run the whole replay, or until the first divergence; returns true if every checkpoint matched
+    public boolean play() {
+        try {
+            playRecords();
+        } catch (BufferUnderflowException e) {
+            // The last record was cut off by a crash; everything before it has been played
+        }
+        return divergedAt < 0;
+    }
+
+    private void playRecords() {
+        while (data.hasRemaining() && divergedAt < 0) {
+            int op = data.get() & 0xFF;
+            if (op == ReplayRecorder.OP_END) {
+                complete = true;
+                break;
+            } else if (op == ReplayRecorder.OP_RESET) {
+                simulation.reset();
+            } else if (op == ReplayRecorder.OP_CHECKPOINT) {
+                long at = data.getLong();
+                long expected = data.getLong();
+                checkpoints++;
+                if (at != ticks || expected != simulation.checksum()) {
+                    divergedAt = at;
+                }
+            } else {
+                long run = readVarint();
+                for (long i = 0; i < run; i++) {
+                    simulation.step(op);
+                }
+                ticks += run;
+            }
+        }
+    }
+
+    private long readVarint() {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = data.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    public long getTicks() { return ticks; }
+    public int getCheckpoints() { return checkpoints; }
+    public long getDivergedAt() { return divergedAt; }
+    public boolean isComplete() { return complete; }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ReplayPlayer replay-file");
+            System.exit(2);
+        }
+        Path file = Paths.get(args[0]);
+        ReplayPlayer player = new ReplayPlayer(file);
+        int swarmThreads = Integer.getInteger("mayhem.swarm", 0);
+        if (swarmThreads > 0) {
+            player.getSimulation().setSwarmPool(new ForkJoinPool(swarmThreads));
+        }
+
+        long start = System.nanoTime();
+        boolean ok = player.play();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d ticks in %.3f s (%.0f ticks/s, %.1fx real time), %d checkpoints%s%n",
+                player.getTicks(), seconds, player.getTicks() / seconds,
+                player.getTicks() / seconds / GameSimulation.TICKS_PER_SECOND, player.getCheckpoints(),
+                player.isComplete() ? "" : ", recording was cut short");
+        GameSimulation simulation = player.getSimulation();
+        System.out.printf("Final state: level %d, score %d, hearts %d%n",
+                simulation.getCurrentLevel(), simulation.getScore(), simulation.getHearts());
+        if (!ok) {
+            System.out.println("Diverged at checkpoint for tick " + player.getDivergedAt());
+            System.exit(1);
+        }
+    }
+}
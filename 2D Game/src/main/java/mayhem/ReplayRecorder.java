@@ -0,0 +1,134 @@
+package mayhem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Records a session as the input bits of every simulation tick, so ReplayPlayer can run it
+// again headless. Ticks with the same inputs are run-length encoded (a held key costs two
+// bytes however long it's held), resets are marked, and every checkpointInterval ticks the
+// simulation's checksum is written so playback can prove it is still in step.
+//
+// File layout, little-endian:
+//   header  MAGIC int, VERSION short, seed long, width int, height int, waves checksum long,
+//           fire cooldown int, endless byte, starting hearts int, players int,
+//           checkpoint interval int
+//   records inputs (0-7) + varint run length | OP_RESET | OP_CHECKPOINT + ticks long + checksum long
+//           | OP_END + ticks long (missing if the game didn't exit cleanly)
+public class ReplayRecorder implements AutoCloseable {
+    static final int MAGIC = 0x50524D4D; // "MMRP"
+    static final short VERSION = 2;
+    static final int OP_RESET = 0xF0;
+    static final int OP_CHECKPOINT = 0xF1;
+    static final int OP_END = 0xFF;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+    private final GameSimulation simulation;
+    private final int checkpointInterval;
+    private int runInputs = -1; // Inputs of the run being counted, -1 for none
+    private long runLength = 0;
+    private long ticks = 0;
+    private boolean closed = false;
+
+    // Start recording a simulation that has just been created, configured and reset, with this seed
+    public ReplayRecorder(Path file, GameSimulation simulation, long seed, int checkpointInterval) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.simulation = simulation;
+        this.checkpointInterval = checkpointInterval;
+        buffer.putInt(MAGIC)
+                .putShort(VERSION)
+                .putLong(seed)
+                .putInt(simulation.getWidth())
+                .putInt(simulation.getHeight())
+                .putLong(simulation.getWaves().checksum())
+                .putInt(simulation.getFireCooldownTicks())
+                .put((byte) (simulation.isEndless() ? 1 : 0))
+                .putInt(simulation.getStartingHearts())
+                .putInt(simulation.getPlayers())
+                .putInt(checkpointInterval);
+    }
+
+    // Call after each simulation.step(inputs)
+    public synchronized void recordStep(int inputs) {
+        if (closed) {
+            return;
+        }
+        if (inputs != runInputs) {
+            flushRun();
+            runInputs = inputs;
+        }
+        runLength++;
+        ticks++;
+        if (checkpointInterval > 0 && ticks % checkpointInterval == 0) {
+            flushRun();
+            ensure(17);
+            buffer.put((byte) OP_CHECKPOINT).putLong(ticks).putLong(simulation.checksum());
+        }
+    }
+
+    // Call after each simulation.reset()
+    public synchronized void recordReset() {
+        if (closed) {
+            return;
+        }
+        flushRun();
+        ensure(1);
+        buffer.put((byte) OP_RESET);
+    }
+
+    private void flushRun() {
+        if (runLength == 0) {
+            return;
+        }
+        ensure(11);
+        buffer.put((byte) runInputs);
+        long n = runLength;
+        while ((n & ~0x7FL) != 0) {
+            buffer.put((byte) ((n & 0x7F) | 0x80));
+            n >>>= 7;
+        }
+        buffer.put((byte) n);
+        runLength = 0;
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    public synchronized long getTicks() {
+        return ticks;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        flushRun();
+        ensure(9);
+        buffer.put((byte) OP_END).putLong(ticks);
+        drain();
+        closed = true;
+        channel.close();
+    }
+}
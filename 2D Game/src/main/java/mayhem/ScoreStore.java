@@ -0,0 +1,407 @@
+package mayhem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.CRC32C;
+
+// Finished games, kept across runs in an append-only log file for the title screen's high
+// scores. submit() only queues a game, so the frame loop never waits on the disk: one writer
+// thread appends whatever has queued up and fsyncs once per batch. Every record carries a
+// CRC, so one torn by a crash or power cut is found and cut off the next time the log is
+// opened, and everything written before it survives.
+//
+// The best MAX_TOP games are held in a bounded min-heap and published after every batch as
+// an immutable, sorted Top; reading it is one volatile read. On opening, the writer thread
+// rebuilds the heap by scanning the memory-mapped log before it takes any new games.
+//
+// File layout, little-endian:
+//   header  MAGIC int, VERSION short
+//   records time long (ms since the epoch), score int, level int, ticks int, flags int,
+//           CRC32C of those 24 bytes int
+public final class ScoreStore implements AutoCloseable, Runnable {
+    static final int MAGIC = 0x43534D4D; // "MMSC"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 6;
+    static final int RECORD_BYTES = 28;
+    public static final int FLAG_WON = 1;
+    public static final int MAX_TOP = 1000;
+    private static final int QUEUE_SIZE = 1024; // Games waiting for the writer; more are dropped
+    private static final long MAP_BYTES = RECORD_BYTES * (1L << 21); // Log is scanned ~56 MB at a time
+
+    // The best games, best first; equal scores are ordered by who got there first. The writer
+    // keeps its working copy as a min-heap, worst at the root, and publishes sorted copies.
+    public static final class Top {
+        static final Top EMPTY = new Top(0);
+
+        private final long[] time;
+        private final int[] score, level, ticks, flags;
+        private int size;
+
+        private Top(int capacity) {
+            time = new long[capacity];
+            score = new int[capacity];
+            level = new int[capacity];
+            ticks = new int[capacity];
+            flags = new int[capacity];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long time(int i) {
+            return time[i];
+        }
+
+        public int score(int i) {
+            return score[i];
+        }
+
+        public int level(int i) {
+            return level[i];
+        }
+
+        public int ticks(int i) {
+            return ticks[i];
+        }
+
+        public boolean won(int i) {
+            return (flags[i] & FLAG_WON) != 0;
+        }
+
+        // Add a game to the heap if it is among the best it can hold
+        void offer(long time, int score, int level, int ticks, int flags) {
+            int i;
+            if (size < this.score.length) {
+                // Sift up: move worse parents down until the new game's slot is found
+                i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (!worse(time, score, this.time[parent], this.score[parent])) {
+                        break;
+                    }
+                    move(parent, i);
+                    i = parent;
+                }
+            } else if (size > 0 && worse(this.time[0], this.score[0], time, score)) {
+                i = siftDown(0, size, time, score);
+            } else {
+                return; // No better than the worst of the best
+            }
+            set(i, time, score, level, ticks, flags);
+        }
+
+        // Sorted copy of the heap: heapsort, moving the worst game to the end each round
+        Top sorted() {
+            Top copy = new Top(size);
+            copy.size = size;
+            System.arraycopy(time, 0, copy.time, 0, size);
+            System.arraycopy(score, 0, copy.score, 0, size);
+            System.arraycopy(level, 0, copy.level, 0, size);
+            System.arraycopy(ticks, 0, copy.ticks, 0, size);
+            System.arraycopy(flags, 0, copy.flags, 0, size);
+            for (int last = size - 1; last > 0; last--) {
+                long t = copy.time[last];
+                int s = copy.score[last], l = copy.level[last], k = copy.ticks[last], f = copy.flags[last];
+                copy.move(0, last);
+                copy.set(copy.siftDown(0, last, t, s), t, s, l, k, f);
+            }
+            return copy;
+        }
+
+        // Move better children up from slot i until a game with this key fits among the
+        // first n slots; returns its slot
+        private int siftDown(int i, int n, long time, int score) {
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= n) {
+                    return i;
+                }
+                if (child + 1 < n && worse(this.time[child + 1], this.score[child + 1], this.time[child], this.score[child])) {
+                    child++;
+                }
+                if (!worse(this.time[child], this.score[child], time, score)) {
+                    return i;
+                }
+                move(child, i);
+                i = child;
+            }
+        }
+
+        private void move(int from, int to) {
+            set(to, time[from], score[from], level[from], ticks[from], flags[from]);
+        }
+
+        private void set(int i, long time, int score, int level, int ticks, int flags) {
+            this.time[i] = time;
+            this.score[i] = score;
+            this.level[i] = level;
+            this.ticks[i] = ticks;
+            this.flags[i] = flags;
+        }
+
+        // Whether game a ranks below game b: a lower score, or the same score reached later
+        private static boolean worse(long timeA, int scoreA, long timeB, int scoreB) {
+            return scoreA != scoreB ? scoreA < scoreB : timeA > timeB;
+        }
+    }
+
+    private static final class Game {
+        static final Game CLOSE = new Game(0, 0, 0, 0, 0); // Tells the writer to finish
+
+        final long time;
+        final int score, level, ticks, flags;
+
+        Game(long time, int score, int level, int ticks, int flags) {
+            this.time = time;
+            this.score = score;
+            this.level = level;
+            this.ticks = ticks;
+            this.flags = flags;
+        }
+    }
+
+    private final Path file;
+    private final BlockingQueue<Game> pending = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private final Thread thread;
+    private volatile Top top = Top.EMPTY;
+    private volatile boolean closed = false;
+    private volatile long recorded = 0; // Games in the log, including this run's
+    private volatile long dropped = 0; // Games submitted while the queue was full or after close()
+    private volatile IOException failure; // Why the log couldn't be opened or written, if it couldn't
+
+    // Writer state; only touched by the writer thread
+    private FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(QUEUE_SIZE * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32C crc = new CRC32C();
+    private final List<Game> batch = new ArrayList<>(QUEUE_SIZE);
+    private final Top best = new Top(MAX_TOP);
+
+    private ScoreStore(Path file) {
+        this.file = file;
+        thread = new Thread(this, "Score writer");
+        thread.setDaemon(true);
+    }
+
+    // Open (or create) the log and start loading it in the background
+    public static ScoreStore open(Path file) {
+        ScoreStore store = new ScoreStore(file);
+        store.thread.start();
+        return store;
+    }
+
+    // Queue a finished game; never blocks. Returns false if it was dropped because the
+    // writer is that far behind or the store is closed.
+    public boolean submit(long time, int score, int level, int ticks, boolean won) {
+        if (closed || !pending.offer(new Game(time, score, level, ticks, won ? FLAG_WON : 0))) {
+            dropped++; // Only the submitting thread writes this
+            return false;
+        }
+        return true;
+    }
+
+    // The best games recorded so far, empty until the log has been loaded
+    public Top top() {
+        return top;
+    }
+
+    public boolean isLoaded() {
+        return loaded.getCount() == 0;
+    }
+
+    public void awaitLoaded() throws InterruptedException {
+        loaded.await();
+    }
+
+    public long getRecorded() {
+        return recorded;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public IOException getFailure() {
+        return failure;
+    }
+
+    // Write everything already submitted and stop the writer
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            pending.put(Game.CLOSE);
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            load();
+        } catch (IOException e) {
+            fail(e);
+        } finally {
+            loaded.countDown();
+        }
+        try {
+            boolean closing = false;
+            while (!closing) {
+                batch.clear();
+                batch.add(pending.take());
+                pending.drainTo(batch, QUEUE_SIZE - 1);
+                closing = batch.get(batch.size() - 1) == Game.CLOSE;
+                if (closing) {
+                    batch.remove(batch.size() - 1);
+                }
+                if (!batch.isEmpty()) {
+                    append(batch);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeChannel();
+        }
+    }
+
+    // Append one batch with a single write and fsync, then publish the new top games. Without
+    // a log they are still ranked, for this run only.
+    private void append(List<Game> games) {
+        buffer.clear();
+        for (Game g : games) {
+            int start = buffer.position();
+            buffer.putLong(g.time).putInt(g.score).putInt(g.level).putInt(g.ticks).putInt(g.flags);
+            crc.reset();
+            crc.update(buffer.duplicate().position(start).limit(start + RECORD_BYTES - 4));
+            buffer.putInt((int) crc.getValue());
+            best.offer(g.time, g.score, g.level, g.ticks, g.flags);
+        }
+        buffer.flip();
+        if (channel != null) {
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                fail(e);
+                closeChannel();
+            }
+        }
+        recorded += games.size();
+        publish();
+    }
+
+    // Check the header, or write one to a new log, then rebuild the top games from every
+    // intact record. A torn tail is truncated away so new records follow the last good one.
+    // The log is locked while open, so a second game can't interleave its records.
+    private void load() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null; // Held by another store in this JVM
+        }
+        if (lock == null) {
+            closeChannel();
+            throw new IOException(file + " is in use by another game");
+        }
+        long size = channel.size();
+        if (size < HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putShort(VERSION).flip();
+            channel.truncate(0);
+            while (header.hasRemaining()) {
+                channel.write(header, HEADER_BYTES - header.remaining());
+            }
+            channel.force(true);
+            channel.position(HEADER_BYTES);
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // Read the whole header
+        }
+        if (header.getInt(0) != MAGIC || header.getShort(4) != VERSION) {
+            closeChannel();
+            throw new IOException(file + " is not a score log, or from another version");
+        }
+
+        long end = HEADER_BYTES; // Just past the last intact record
+        long games = 0, corrupt = 0, trailing = 0; // Bad records, and those of them since the last good one
+        long records = (size - HEADER_BYTES) / RECORD_BYTES;
+        for (long first = 0; first < records; first += MAP_BYTES / RECORD_BYTES) {
+            long position = HEADER_BYTES + first * RECORD_BYTES;
+            long length = Math.min(MAP_BYTES, (records - first) * RECORD_BYTES);
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer view = map.duplicate();
+            for (int at = 0; at < length; at += RECORD_BYTES) {
+                crc.reset();
+                crc.update(view.limit(at + RECORD_BYTES - 4).position(at));
+                if ((int) crc.getValue() != map.getInt(at + RECORD_BYTES - 4)) {
+                    corrupt++;
+                    trailing++;
+                    continue;
+                }
+                best.offer(map.getLong(at), map.getInt(at + 8), map.getInt(at + 12), map.getInt(at + 16), map.getInt(at + 20));
+                games++;
+                trailing = 0;
+                end = position + at + RECORD_BYTES;
+            }
+        }
+        if (end < size) {
+            // Records that are bad all the way to the end were torn while being written
+            corrupt -= trailing;
+            System.err.printf("%s: dropped %d bytes of torn records at the end%n", file, size - end);
+            channel.truncate(end);
+            channel.force(true);
+        }
+        if (corrupt > 0) {
+            System.err.printf("%s: skipped %d corrupt record(s)%n", file, corrupt);
+        }
+        channel.position(end);
+        recorded = games;
+        publish();
+    }
+
+    private void publish() {
+        top = best.sorted();
+    }
+
+    private void fail(IOException e) {
+        failure = e;
+        e.printStackTrace(); // Play on; games are only kept for this run
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package mayhem;
+
+import java.nio.ByteBuffer;
+
+// The last N simulation snapshots, one per record() call, for rewind and rollback.
+// Each slot is a direct buffer reused from one lap of the ring to the next and only
+// reallocated when a snapshot outgrows it, so recording every tick allocates nothing.
+public class SnapshotRing {
+    private final ByteBuffer[] slots;
+    private final long[] ticks;
+    private int newest = -1; // Slot of the latest snapshot
+    private int count = 0;
+
+    public SnapshotRing(int capacity) {
+        slots = new ByteBuffer[capacity];
+        ticks = new long[capacity];
+    }
+
+    // Snapshot the simulation into the next slot, overwriting the oldest once full
+    public void record(GameSimulation simulation) {
+        int slot = (newest + 1) % slots.length;
+        int size = simulation.snapshotSize();
+        ByteBuffer buffer = slots[slot];
+        if (buffer == null || buffer.capacity() < size) {
+            buffer = ByteBuffer.allocateDirect(Math.max(size + size / 2, 4096)); // Headroom for a growing wave
+            slots[slot] = buffer;
+        }
+        buffer.clear();
+        simulation.writeSnapshot(buffer);
+        buffer.flip();
+        ticks[slot] = simulation.getTick();
+        newest = slot;
+        count = Math.min(count + 1, slots.length);
+    }
+
+    // Restore the snapshot taken `back` records ago (0 is the latest) and drop everything
+    // newer, so recording resumes from there. Returns false if the ring doesn't go back that far.
+    public boolean rewind(GameSimulation simulation, int back) {
+        if (back < 0 || back >= count) {
+            return false;
+        }
+        int slot = Math.floorMod(newest - back, slots.length);
+        ByteBuffer buffer = slots[slot];
+        buffer.rewind();
+        simulation.readSnapshot(buffer);
+        newest = slot;
+        count -= back;
+        return true;
+    }
+
+    // Restore the newest snapshot taken at or before the given tick, e.g. to roll back
+    // and re-simulate when late input arrives for that tick
+    public boolean rollbackTo(GameSimulation simulation, long tick) {
+        for (int back = 0; back < count; back++) {
+            if (ticks[Math.floorMod(newest - back, slots.length)] <= tick) {
+                return rewind(simulation, back);
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public void clear() {
+        newest = -1;
+        count = 0;
+    }
+}
@@ -0,0 +1,113 @@
+package mayhem;
+
+import java.util.Arrays;
+
+// Uniform-grid broad phase over the play field. build() buckets every entity of a
+// store into the cells its box overlaps (a counting sort, no per-entity objects);
+// query() then returns only the entities in the cells a box touches, so collision
+// cost follows local density instead of shots x aliens.
+public class SpatialGrid {
+    private final int cellSize;
+    private final int columns, rows;
+    private final int[] cellStart; // Items of cell c are items[cellStart[c] .. cellStart[c + 1])
+    private final int[] cellFill;
+    private int[] items = new int[256];
+
+    // Query results, de-duplicated with a per-entity stamp since big boxes span cells
+    private int[] stamps = new int[256];
+    private int stamp = 0;
+    private int[] results = new int[64];
+    private int resultCount = 0;
+
+    public SpatialGrid(int width, int height, int cellSize) {
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (width + cellSize - 1) / cellSize);
+        this.rows = Math.max(1, (height + cellSize - 1) / cellSize);
+        this.cellStart = new int[columns * rows + 1];
+        this.cellFill = new int[columns * rows];
+    }
+
+    // Rebuild the grid from every entity in the store, all of size w x h
+    public void build(EntityStore store, int w, int h) {
+        int n = store.size();
+        int[] xs = store.x, ys = store.y;
+        Arrays.fill(cellStart, 0);
+
+        // Pass 1: count entries per cell
+        int total = 0;
+        for (int i = 0; i < n; i++) {
+            int c0 = column(xs[i]), c1 = column(xs[i] + w - 1);
+            int r0 = row(ys[i]), r1 = row(ys[i] + h - 1);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    cellStart[r * columns + c + 1]++;
+                }
+            }
+            total += (c1 - c0 + 1) * (r1 - r0 + 1);
+        }
+
+        // Prefix sum turns counts into start offsets
+        for (int c = 1; c < cellStart.length; c++) {
+            cellStart[c] += cellStart[c - 1];
+        }
+        if (items.length < total) {
+            items = new int[Math.max(total, items.length * 2)];
+        }
+        if (stamps.length < n) {
+            stamps = new int[Math.max(n, stamps.length * 2)];
+            stamp = 0;
+        }
+        System.arraycopy(cellStart, 0, cellFill, 0, cellFill.length);
+
+        // Pass 2: write entity indices into their cells
+        for (int i = 0; i < n; i++) {
+            int c0 = column(xs[i]), c1 = column(xs[i] + w - 1);
+            int r0 = row(ys[i]), r1 = row(ys[i] + h - 1);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    items[cellFill[r * columns + c]++] = i;
+                }
+            }
+        }
+    }
+
+    // Collect the indices of entities sharing a cell with the box; read them with result(k)
+    public int query(int x, int y, int w, int h) {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+        resultCount = 0;
+        int c0 = column(x), c1 = column(x + w - 1);
+        int r0 = row(y), r1 = row(y + h - 1);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * columns + c;
+                for (int k = cellStart[cell], end = cellStart[cell + 1]; k < end; k++) {
+                    int i = items[k];
+                    if (stamps[i] != stamp) {
+                        stamps[i] = stamp;
+                        if (resultCount == results.length) {
+                            results = Arrays.copyOf(results, resultCount * 2);
+                        }
+                        results[resultCount++] = i;
+                    }
+                }
+            }
+        }
+        return resultCount;
+    }
+
+    public int result(int k) {
+        return results[k];
+    }
+
+    // Entities outside the play field are kept in the edge cells
+    private int column(int px) {
+        return Math.max(0, Math.min(columns - 1, Math.floorDiv(px, cellSize)));
+    }
+
+    private int row(int py) {
+        return Math.max(0, Math.min(rows - 1, Math.floorDiv(py, cellSize)));
+    }
+}
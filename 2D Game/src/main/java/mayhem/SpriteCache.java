@@ -0,0 +1,151 @@
+package mayhem;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.Arrays;
+
+// Keeps every sprite pre-scaled to its on-screen size in an image compatible with the
+// current display, so a frame only blits and never scales. Sizes and positions are in
+// logical pixels; with a render scale other than 1 the images are scaled by it once and
+// positions on draw, so the blits stay unscaled. Opaque sprites (the background) live in
+// VolatileImages in video memory; translucent ones are managed BufferedImages, which
+// Java2D caches in VRAM on its own. Animated sprites keep one scaled image per frame,
+// each made the first time that frame is drawn; the caller picks the frame from the
+// simulation tick. The cache rebuilds when the GraphicsConfiguration changes.
+public class SpriteCache {
+    private static class Entry {
+        final Animation source;
+        final int width, height;
+        final boolean opaque;
+        final Image[] scaled; // Per frame: VolatileImage when opaque, BufferedImage otherwise
+
+        Entry(Animation source, int width, int height, boolean opaque) {
+            this.source = source;
+            this.width = width;
+            this.height = height;
+            this.opaque = opaque;
+            this.scaled = new Image[source.frameCount()];
+        }
+    }
+
+    private static final Color CLEAR = new Color(0, 0, 0, 0);
+
+    private Entry[] entries = new Entry[8];
+    private int count = 0;
+    private GraphicsConfiguration config;
+    private float scale = 1;
+
+    // Register a sprite drawn at width x height and return its id for draw()
+    public int register(Animation source, int width, int height, boolean opaque) {
+        if (count == entries.length) {
+            entries = Arrays.copyOf(entries, count * 2);
+        }
+        entries[count] = new Entry(source, width, height, opaque);
+        return count++;
+    }
+
+    // Device pixels per logical pixel; rebuilds everything if it changed
+    public void setScale(float scale) {
+        if (scale != this.scale) {
+            this.scale = scale;
+            invalidateAll();
+        }
+    }
+
+    // Call once per frame with the target's configuration; rebuilds everything if it changed
+    public void validate(GraphicsConfiguration gc) {
+        if (gc != config) {
+            config = gc;
+            invalidateAll();
+        }
+    }
+
+    // Drop every scaled copy, e.g. after a display-mode change
+    public void invalidateAll() {
+        for (int i = 0; i < count; i++) {
+            Image[] scaled = entries[i].scaled;
+            for (int f = 0; f < scaled.length; f++) {
+                if (scaled[f] != null) {
+                    scaled[f].flush();
+                    scaled[f] = null;
+                }
+            }
+        }
+    }
+
+    // Blit sprite id at logical (x, y) without scaling, showing its first frame
+    public void draw(Graphics g, int id, int x, int y) {
+        draw(g, id, x, y, 0);
+    }
+
+    // Blit sprite id at logical (x, y) as it looks at the given simulation tick
+    public void draw(Graphics g, int id, int x, int y, long tick) {
+        Entry e = entries[id];
+        int frame = e.source.frameAt(tick);
+        if (scale != 1) {
+            x = Math.round(x * scale);
+            y = Math.round(y * scale);
+        }
+        if (e.opaque && config != null) {
+            drawVolatile(g, e, frame, x, y);
+            return;
+        }
+        if (e.scaled[frame] == null) {
+            e.scaled[frame] = createImage(e);
+            render(e, frame);
+        }
+        g.drawImage(e.scaled[frame], x, y, null);
+    }
+
+    private void drawVolatile(Graphics g, Entry e, int frame, int x, int y) {
+        // Surface contents can be lost at any time (mode switch, screensaver...)
+        for (int attempt = 0; attempt < 3; attempt++) {
+            VolatileImage vi = (VolatileImage) e.scaled[frame];
+            if (vi == null || vi.validate(config) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if (vi != null) {
+                    vi.flush();
+                }
+                e.scaled[frame] = config.createCompatibleVolatileImage(scaled(e.width), scaled(e.height), Transparency.OPAQUE);
+                render(e, frame);
+            } else if (vi.contentsLost()) {
+                render(e, frame);
+            }
+            g.drawImage(e.scaled[frame], x, y, null);
+            if (!((VolatileImage) e.scaled[frame]).contentsLost()) {
+                return;
+            }
+        }
+    }
+
+    private Image createImage(Entry e) {
+        int transparency = e.opaque ? Transparency.OPAQUE : Transparency.TRANSLUCENT;
+        if (config != null) {
+            return config.createCompatibleImage(scaled(e.width), scaled(e.height), transparency);
+        }
+        return new BufferedImage(scaled(e.width), scaled(e.height), e.opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+    }
+
+    // Scale a frame into its cached image once, with good filtering since it's a one-off
+    private void render(Entry e, int frame) {
+        Graphics2D g2 = (Graphics2D) e.scaled[frame].getGraphics();
+        try {
+            g2.setComposite(AlphaComposite.Src);
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            int width = scaled(e.width), height = scaled(e.height);
+            if (!e.opaque) {
+                g2.setColor(CLEAR);
+                g2.fillRect(0, 0, width, height);
+                g2.setComposite(AlphaComposite.SrcOver);
+            }
+            g2.drawImage(e.source.frame(frame), 0, 0, width, height, null);
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    private int scaled(int size) {
+        return Math.max(1, Math.round(size * scale));
+    }
+}
@@ -0,0 +1,58 @@
+package mayhem;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Swarm mode movement: moves a large store by its vertical velocity on a ForkJoin pool,
+// split into fixed chunks. Each task only writes its own index range and marks entities
+// that left the field with alive = false instead of removing them, so nothing is moved
+// between slots in parallel. The caller then removes the marked ones sequentially, in the
+// same order the single-threaded loop would, which keeps the result bit-identical.
+@SuppressWarnings("serial") // Tasks are never serialized
+final class SwarmMover extends RecursiveTask<Integer> {
+    static final int CHUNK = 8192; // Entities per task; smaller stores aren't worth splitting
+
+    private final int[] y, vy;
+    private final boolean[] alive;
+    private final int from, to;
+    private final int minY, maxY;
+
+    private SwarmMover(int[] y, int[] vy, boolean[] alive, int from, int to, int minY, int maxY) {
+        this.y = y;
+        this.vy = vy;
+        this.alive = alive;
+        this.from = from;
+        this.to = to;
+        this.minY = minY;
+        this.maxY = maxY;
+    }
+
+    // Move every entity of the store and mark those now above minY or below maxY as dead.
+    // Returns how many were marked.
+    static int move(ForkJoinPool pool, EntityStore store, int minY, int maxY) {
+        return pool.invoke(new SwarmMover(store.y, store.vy, store.alive, 0, store.size(), minY, maxY));
+    }
+
+    @Override
+    protected Integer compute() {
+        if (to - from <= CHUNK) {
+            int left = 0;
+            for (int i = from; i < to; i++) {
+                int newY = y[i] + vy[i];
+                y[i] = newY;
+                if (newY < minY || newY > maxY) {
+                    alive[i] = false;
+                    left++;
+                }
+            }
+            return left;
+        }
+        // Split on a chunk boundary so tasks never share a chunk
+        int chunks = (to - from + CHUNK - 1) / CHUNK;
+        int mid = from + (chunks / 2) * CHUNK;
+        SwarmMover first = new SwarmMover(y, vy, alive, from, mid, minY, maxY);
+        first.fork();
+        int second = new SwarmMover(y, vy, alive, mid, to, minY, maxY).compute();
+        return first.join() + second;
+    }
+}
@@ -0,0 +1,453 @@
+package mayhem;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+// Levels, waves and mothership phases parsed once from a text file into flat int arrays.
+// The default table is the waves.txt resource next to this class; -Dmayhem.waves=FILE
+// loads another one. Format, one directive per line, '#' starts a comment:
+//
+//   budget N                     most aliens spawned per tick, 0 for no limit
+//   endless count=P speed=P hits=P
+//                                levels past the last one repeat the table, scaled by
+//                                P percent more per repetition
+//   level                        starts the next level
+//   wave at=T formation=F count=N speed=S y=Y margin=M columns=C spacing=D
+//                                N aliens moving down S px/tick, due T ticks into the level.
+//                                F is row (N spread between the margins, one is centered),
+//                                grid (rows of C columns, stacked D px upwards) or
+//                                vee (apex at the center, arms D px apart)
+//   mothership at=T              the level's mothership appears T ticks after its last wave
+//   phase hits=H speed=S fire=F pattern=P bullets=N arc=A every=E turn=R shotSpeed=V
+//                                a mothership phase lasting H hits and moving S px/tick.
+//                                It fires volleys of N bullets at V px/tick, every E ticks,
+//                                or with F per mille chance each tick when E is 0. P is
+//                                spread (fanned over A degrees, straight down in the middle),
+//                                spiral (evenly round the circle, turning R degrees each
+//                                volley) or aimed (fanned over A degrees around the
+//                                nearest jet). The defaults fire single shots straight down
+public final class WaveTable {
+    public static final int FORMATION_ROW = 0;
+    public static final int FORMATION_GRID = 1;
+    public static final int FORMATION_VEE = 2;
+    private static final String[] FORMATIONS = {"row", "grid", "vee"};
+    public static final int PATTERN_SPREAD = 0;
+    public static final int PATTERN_SPIRAL = 1;
+    public static final int PATTERN_AIMED = 2;
+    private static final String[] PATTERNS = {"spread", "spiral", "aimed"};
+
+    // Waves, indexed by wave number; a level's waves are contiguous
+    final int[] waveAt, waveFormation, waveCount, waveSpeed, waveY, waveMargin, waveColumns, waveSpacing;
+    // Levels, indexed by level - 1
+    final int[] levelFirstWave, levelWaveEnd, levelMothershipAt, levelFirstPhase, levelPhaseEnd;
+    // Mothership phases and the bullet pattern each one fires
+    final int[] phaseHits, phaseSpeed, phaseFire;
+    final int[] phasePattern, phaseBullets, phaseArc, phaseEvery, phaseTurn, phaseShotSpeed;
+
+    final int spawnBudget;
+    final int endlessCount, endlessSpeed, endlessHits;
+
+    private WaveTable(Builder b) {
+        waveAt = Arrays.copyOf(b.waveAt, b.waves);
+        waveFormation = Arrays.copyOf(b.waveFormation, b.waves);
+        waveCount = Arrays.copyOf(b.waveCount, b.waves);
+        waveSpeed = Arrays.copyOf(b.waveSpeed, b.waves);
+        waveY = Arrays.copyOf(b.waveY, b.waves);
+        waveMargin = Arrays.copyOf(b.waveMargin, b.waves);
+        waveColumns = Arrays.copyOf(b.waveColumns, b.waves);
+        waveSpacing = Arrays.copyOf(b.waveSpacing, b.waves);
+        levelFirstWave = Arrays.copyOf(b.levelFirstWave, b.levels);
+        levelWaveEnd = Arrays.copyOf(b.levelWaveEnd, b.levels);
+        levelMothershipAt = Arrays.copyOf(b.levelMothershipAt, b.levels);
+        levelFirstPhase = Arrays.copyOf(b.levelFirstPhase, b.levels);
+        levelPhaseEnd = Arrays.copyOf(b.levelPhaseEnd, b.levels);
+        phaseHits = Arrays.copyOf(b.phaseHits, b.phases);
+        phaseSpeed = Arrays.copyOf(b.phaseSpeed, b.phases);
+        phaseFire = Arrays.copyOf(b.phaseFire, b.phases);
+        phasePattern = Arrays.copyOf(b.phasePattern, b.phases);
+        phaseBullets = Arrays.copyOf(b.phaseBullets, b.phases);
+        phaseArc = Arrays.copyOf(b.phaseArc, b.phases);
+        phaseEvery = Arrays.copyOf(b.phaseEvery, b.phases);
+        phaseTurn = Arrays.copyOf(b.phaseTurn, b.phases);
+        phaseShotSpeed = Arrays.copyOf(b.phaseShotSpeed, b.phases);
+        spawnBudget = b.spawnBudget > 0 ? b.spawnBudget : Integer.MAX_VALUE;
+        endlessCount = b.endlessCount;
+        endlessSpeed = b.endlessSpeed;
+        endlessHits = b.endlessHits;
+    }
+
+    // Copy with every alien and mothership speed, mothership phase length and mothership
+    // fire rate scaled by the given percentages, for balance sweeps. Phases firing on an
+    // interval get it shortened or lengthened to match; bullet speeds are left alone.
+    public WaveTable tuned(int speedPercent, int hitsPercent, int firePercent) {
+        return new WaveTable(this, speedPercent, hitsPercent, firePercent);
+    }
+
+    // Columns that aren't scaled are shared; tables are never written after construction
+    private WaveTable(WaveTable base, int speedPercent, int hitsPercent, int firePercent) {
+        waveAt = base.waveAt;
+        waveFormation = base.waveFormation;
+        waveCount = base.waveCount;
+        waveSpeed = percent(base.waveSpeed, speedPercent, 0);
+        waveY = base.waveY;
+        waveMargin = base.waveMargin;
+        waveColumns = base.waveColumns;
+        waveSpacing = base.waveSpacing;
+        levelFirstWave = base.levelFirstWave;
+        levelWaveEnd = base.levelWaveEnd;
+        levelMothershipAt = base.levelMothershipAt;
+        levelFirstPhase = base.levelFirstPhase;
+        levelPhaseEnd = base.levelPhaseEnd;
+        phaseHits = percent(base.phaseHits, hitsPercent, 1);
+        phaseSpeed = percent(base.phaseSpeed, speedPercent, 0);
+        phaseFire = percent(base.phaseFire, firePercent, 0);
+        phasePattern = base.phasePattern;
+        phaseBullets = base.phaseBullets;
+        phaseArc = base.phaseArc;
+        phaseEvery = new int[base.phaseEvery.length];
+        for (int i = 0; i < phaseEvery.length; i++) {
+            phaseEvery[i] = base.phaseEvery[i] > 0 && firePercent > 0
+                    ? Math.max(1, (int) (((long) base.phaseEvery[i] * 100 + firePercent / 2) / firePercent))
+                    : base.phaseEvery[i];
+        }
+        phaseTurn = base.phaseTurn;
+        phaseShotSpeed = base.phaseShotSpeed;
+        spawnBudget = base.spawnBudget;
+        endlessCount = base.endlessCount;
+        endlessSpeed = base.endlessSpeed;
+        endlessHits = base.endlessHits;
+    }
+
+    // Scale each value by percent, rounding to nearest, and keep it at least min
+    private static int[] percent(int[] values, int percent, int min) {
+        int[] scaled = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            scaled[i] = Math.max(min, (int) (((long) values[i] * percent + 50) / 100));
+        }
+        return scaled;
+    }
+
+    // The table named by -Dmayhem.waves, or the built-in one
+    public static WaveTable load() {
+        String file = System.getProperty("mayhem.waves");
+        try (Reader in = file != null
+                ? Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)
+                : new InputStreamReader(openResource(), StandardCharsets.UTF_8)) {
+            return parse(in, file != null ? file : "waves.txt");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read waves from " + (file != null ? file : "waves.txt"), e);
+        }
+    }
+
+    private static InputStream openResource() throws FileNotFoundException {
+        InputStream in = WaveTable.class.getResourceAsStream("waves.txt");
+        if (in == null) {
+            throw new FileNotFoundException("waves.txt resource");
+        }
+        return in;
+    }
+
+    public static WaveTable parse(String text) {
+        try {
+            return parse(new StringReader(text), "waves");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Not thrown by a StringReader
+        }
+    }
+
+    // Errors are reported as IllegalArgumentException with the source name and line number
+    public static WaveTable parse(Reader reader, String source) throws IOException {
+        Builder b = new Builder();
+        BufferedReader in = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            String[] tokens = (comment >= 0 ? line.substring(0, comment) : line).trim().split("\\s+");
+            if (tokens[0].isEmpty()) {
+                continue;
+            }
+            try {
+                b.directive(tokens);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException(source + ":" + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        if (b.levels == 0) {
+            throw new IllegalArgumentException(source + ": no levels defined");
+        }
+        try {
+            b.endLevel();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(source + ": " + e.getMessage(), e);
+        }
+        return new WaveTable(b);
+    }
+
+    // Identifies the table's contents, e.g. to check a replay was recorded with the same levels
+    public long checksum() {
+        long h = 0xCBF29CE484222325L;
+        for (int[] column : new int[][]{waveAt, waveFormation, waveCount, waveSpeed, waveY, waveMargin, waveColumns,
+                waveSpacing, levelFirstWave, levelWaveEnd, levelMothershipAt, levelFirstPhase, levelPhaseEnd,
+                phaseHits, phaseSpeed, phaseFire, phasePattern, phaseBullets, phaseArc, phaseEvery, phaseTurn,
+                phaseShotSpeed}) {
+            h = GameSimulation.mix(h, column.length);
+            for (int value : column) {
+                h = GameSimulation.mix(h, value);
+            }
+        }
+        h = GameSimulation.mix(h, spawnBudget);
+        h = GameSimulation.mix(h, endlessCount);
+        h = GameSimulation.mix(h, endlessSpeed);
+        return GameSimulation.mix(h, endlessHits);
+    }
+
+    public int levels() {
+        return levelFirstWave.length;
+    }
+
+    // Levels past the table repeat it; this is how many times it has wrapped around
+    int repetition(int level) {
+        return (level - 1) / levels();
+    }
+
+    // Table row used for a level, 0-based
+    int row(int level) {
+        return (level - 1) % levels();
+    }
+
+    // Scale a value up by percent for every repetition of the table, rounding to nearest
+    static int scale(int value, int repetition, int percent) {
+        return (int) (((long) value * (100 + (long) repetition * percent) + 50) / 100);
+    }
+
+    int waveCount(int wave, int repetition) {
+        return scale(waveCount[wave], repetition, endlessCount);
+    }
+
+    int waveSpeed(int wave, int repetition) {
+        return scale(waveSpeed[wave], repetition, endlessSpeed);
+    }
+
+    int phaseHits(int phase, int repetition) {
+        return Math.max(1, scale(phaseHits[phase], repetition, endlessHits));
+    }
+
+    int phaseSpeed(int phase, int repetition) {
+        return scale(phaseSpeed[phase], repetition, endlessSpeed);
+    }
+
+    // Position of the k-th alien of a wave; writes x and y into out
+    void place(int wave, int k, int count, int fieldWidth, int[] out) {
+        int free = fieldWidth - GameSimulation.ALIEN_WIDTH;
+        int margin = waveMargin[wave];
+        int y = waveY[wave];
+        int x;
+        switch (waveFormation[wave]) {
+            case FORMATION_GRID: {
+                int columns = Math.min(waveColumns[wave], count);
+                x = spread(k % columns, columns, margin, free);
+                y -= (k / columns) * waveSpacing[wave];
+                break;
+            }
+            case FORMATION_VEE: {
+                int arm = (k + 1) / 2; // 0 is the apex, then alternating left and right
+                x = free / 2 + ((k & 1) != 0 ? -arm : arm) * waveSpacing[wave];
+                y -= arm * waveSpacing[wave];
+                break;
+            }
+            default:
+                x = spread(k, count, margin, free);
+                break;
+        }
+        out[0] = GameSimulation.clamp(x, 0, free);
+        out[1] = y;
+    }
+
+    // i-th of n positions spread evenly between the margins; a single one is centered
+    private static int spread(int i, int n, int margin, int free) {
+        if (n == 1) {
+            return free / 2;
+        }
+        return margin + (int) ((long) i * (free - 2 * margin) / (n - 1));
+    }
+
+    // Growable arrays filled while parsing, trimmed by the constructor
+    private static final class Builder {
+        int waves, levels, phases;
+        int[] waveAt = new int[16], waveFormation = new int[16], waveCount = new int[16], waveSpeed = new int[16],
+                waveY = new int[16], waveMargin = new int[16], waveColumns = new int[16], waveSpacing = new int[16];
+        int[] levelFirstWave = new int[8], levelWaveEnd = new int[8], levelMothershipAt = new int[8],
+                levelFirstPhase = new int[8], levelPhaseEnd = new int[8];
+        int[] phaseHits = new int[8], phaseSpeed = new int[8], phaseFire = new int[8];
+        int[] phasePattern = new int[8], phaseBullets = new int[8], phaseArc = new int[8], phaseEvery = new int[8],
+                phaseTurn = new int[8], phaseShotSpeed = new int[8];
+        int spawnBudget = 0;
+        int endlessCount = 0, endlessSpeed = 0, endlessHits = 0;
+
+        void directive(String[] tokens) {
+            switch (tokens[0]) {
+                case "budget":
+                    spawnBudget = Integer.parseInt(tokens[1]);
+                    break;
+                case "endless":
+                    allowOnly(tokens, "count", "speed", "hits");
+                    endlessCount = option(tokens, "count", 0);
+                    endlessSpeed = option(tokens, "speed", 0);
+                    endlessHits = option(tokens, "hits", 0);
+                    break;
+                case "level":
+                    allowOnly(tokens);
+                    if (levels > 0) {
+                        endLevel();
+                    }
+                    if (levels == levelFirstWave.length) {
+                        levelFirstWave = grow(levelFirstWave);
+                        levelWaveEnd = grow(levelWaveEnd);
+                        levelMothershipAt = grow(levelMothershipAt);
+                        levelFirstPhase = grow(levelFirstPhase);
+                        levelPhaseEnd = grow(levelPhaseEnd);
+                    }
+                    levelFirstWave[levels] = waves;
+                    levelMothershipAt[levels] = -1;
+                    levelFirstPhase[levels] = phases;
+                    levels++;
+                    break;
+                case "wave":
+                    requireLevel(tokens);
+                    allowOnly(tokens, "at", "formation", "count", "speed", "y", "margin", "columns", "spacing");
+                    if (waves == waveAt.length) {
+                        waveAt = grow(waveAt);
+                        waveFormation = grow(waveFormation);
+                        waveCount = grow(waveCount);
+                        waveSpeed = grow(waveSpeed);
+                        waveY = grow(waveY);
+                        waveMargin = grow(waveMargin);
+                        waveColumns = grow(waveColumns);
+                        waveSpacing = grow(waveSpacing);
+                    }
+                    waveAt[waves] = option(tokens, "at", 0);
+                    waveFormation[waves] = named(tokens, "formation", FORMATIONS, "row");
+                    waveCount[waves] = positive(tokens, "count", 1);
+                    waveSpeed[waves] = option(tokens, "speed", 2);
+                    waveY[waves] = option(tokens, "y", 50);
+                    waveMargin[waves] = option(tokens, "margin", 100);
+                    waveColumns[waves] = positive(tokens, "columns", 10);
+                    waveSpacing[waves] = option(tokens, "spacing", 130);
+                    waves++;
+                    break;
+                case "mothership":
+                    requireLevel(tokens);
+                    allowOnly(tokens, "at");
+                    levelMothershipAt[levels - 1] = option(tokens, "at", 0);
+                    break;
+                case "phase":
+                    requireLevel(tokens);
+                    if (levelMothershipAt[levels - 1] < 0) {
+                        throw new IllegalArgumentException("phase before mothership");
+                    }
+                    allowOnly(tokens, "hits", "speed", "fire", "pattern", "bullets", "arc", "every", "turn", "shotSpeed");
+                    if (phases == phaseHits.length) {
+                        phaseHits = grow(phaseHits);
+                        phaseSpeed = grow(phaseSpeed);
+                        phaseFire = grow(phaseFire);
+                        phasePattern = grow(phasePattern);
+                        phaseBullets = grow(phaseBullets);
+                        phaseArc = grow(phaseArc);
+                        phaseEvery = grow(phaseEvery);
+                        phaseTurn = grow(phaseTurn);
+                        phaseShotSpeed = grow(phaseShotSpeed);
+                    }
+                    phaseHits[phases] = positive(tokens, "hits", 30);
+                    phaseSpeed[phases] = option(tokens, "speed", 2);
+                    phaseFire[phases] = option(tokens, "fire", 50);
+                    phasePattern[phases] = named(tokens, "pattern", PATTERNS, "spread");
+                    phaseBullets[phases] = positive(tokens, "bullets", 1);
+                    phaseArc[phases] = option(tokens, "arc", 60);
+                    phaseEvery[phases] = option(tokens, "every", 0);
+                    phaseTurn[phases] = option(tokens, "turn", 10);
+                    phaseShotSpeed[phases] = positive(tokens, "shotSpeed", 2);
+                    phases++;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown directive " + tokens[0]);
+            }
+        }
+
+        void endLevel() {
+            int level = levels - 1;
+            levelWaveEnd[level] = waves;
+            levelPhaseEnd[level] = phases;
+            if (levelMothershipAt[level] >= 0 && levelFirstPhase[level] == phases) {
+                throw new IllegalArgumentException("level " + levels + " has a mothership with no phases");
+            }
+        }
+
+        private void requireLevel(String[] tokens) {
+            if (levels == 0) {
+                throw new IllegalArgumentException(tokens[0] + " before the first level");
+            }
+        }
+
+        // Reject options the directive doesn't have, so a typo isn't silently the default
+        private static void allowOnly(String[] tokens, String... keys) {
+            for (int i = 1; i < tokens.length; i++) {
+                int eq = tokens[i].indexOf('=');
+                if (eq < 0) {
+                    throw new IllegalArgumentException("expected key=value, got " + tokens[i]);
+                }
+                String key = tokens[i].substring(0, eq);
+                if (!Arrays.asList(keys).contains(key)) {
+                    throw new IllegalArgumentException("unknown " + tokens[0] + " option " + key
+                            + (keys.length > 0 ? "; expected one of " + String.join(", ", keys) : ""));
+                }
+            }
+        }
+
+        // Index of a named option's value in names
+        private static int named(String[] tokens, String key, String[] names, String defaultValue) {
+            String name = stringOption(tokens, key, defaultValue);
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("unknown " + key + " " + name);
+        }
+
+        private static int positive(String[] tokens, String key, int defaultValue) {
+            int value = option(tokens, key, defaultValue);
+            if (value <= 0) {
+                throw new IllegalArgumentException(key + " must be positive");
+            }
+            return value;
+        }
+
+        private static int option(String[] tokens, String key, int defaultValue) {
+            String value = stringOption(tokens, key, null);
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        }
+
+        // key=value tokens after the directive name
+        private static String stringOption(String[] tokens, String key, String defaultValue) {
+            for (int i = 1; i < tokens.length; i++) {
+                int eq = tokens[i].indexOf('=');
+                if (eq < 0) {
+                    throw new IllegalArgumentException("expected key=value, got " + tokens[i]);
+                }
+                if (tokens[i].regionMatches(0, key, 0, eq) && eq == key.length()) {
+                    return tokens[i].substring(eq + 1);
+                }
+            }
+            return defaultValue;
+        }
+
+        private static int[] grow(int[] array) {
+            return Arrays.copyOf(array, array.length * 2);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package mayhem;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AabbTest {
+    @Test
+    void fastShotThatWouldTunnelStillHits() {
+        // A 4x10 shot moving 60 px up jumps from below a 20 px high alien to above it
+        assertFalse(Aabb.intersects(100, 0, 4, 10, 90, 20, 30, 20));
+        assertTrue(Aabb.swept(100, 0, 4, 10, 0, -60, 90, 20, 30, 20, 0, 0));
+        // The same jump beside the alien misses
+        assertFalse(Aabb.swept(130, 0, 4, 10, 0, -60, 90, 20, 30, 20, 0, 0));
+    }
+
+    @Test
+    void boxesPassingThroughEachOtherHit() {
+        // Moving 50 px towards each other, they swap sides within one tick
+        assertFalse(Aabb.intersects(60, 0, 4, 4, 0, 0, 4, 4));
+        assertTrue(Aabb.swept(60, 0, 4, 4, 50, 0, 0, 0, 4, 4, -50, 0));
+        // One row lower they pass by
+        assertFalse(Aabb.swept(60, 4, 4, 4, 50, 0, 0, 0, 4, 4, -50, 0));
+    }
+
+    @Test
+    void grazingDoesNotCount() {
+        // Sliding along an edge
+        assertFalse(Aabb.swept(104, 0, 4, 10, 0, -60, 90, 20, 14, 20, 0, 0));
+        assertTrue(Aabb.swept(103, 0, 4, 10, 0, -60, 90, 20, 14, 20, 0, 0));
+        // Moving diagonally past a corner: the corners touch at half a tick and no more
+        assertFalse(Aabb.swept(20, 20, 10, 10, 20, 20, 20, 0, 10, 10, 0, 0));
+        assertTrue(Aabb.swept(20, 20, 10, 10, 20, 20, 19, 0, 10, 10, 0, 0));
+    }
+
+    @Test
+    void parallelMovesAreTheEndOfTickTest() {
+        // Same velocity: nothing moves relative to the other, so only where they end matters
+        assertFalse(Aabb.swept(0, 0, 10, 10, 0, -80, 10, 0, 10, 10, 0, -80));
+        assertTrue(Aabb.swept(0, 0, 10, 10, 0, -80, 9, 0, 10, 10, 0, -80));
+        // Moving along the same line at different speeds, side by side
+        assertFalse(Aabb.swept(0, 0, 10, 10, 0, -80, 10, 0, 10, 10, 0, 40));
+        assertTrue(Aabb.swept(0, 0, 10, 10, 0, -80, 5, 50, 10, 10, 0, 40));
+    }
+
+    @Test
+    void stillBoxesAgreeWithIntersects() {
+        Random random = new Random(7);
+        for (int n = 0; n < 10_000; n++) {
+            int ax = random.nextInt(60), ay = random.nextInt(60), aw = 1 + random.nextInt(30), ah = 1 + random.nextInt(30);
+            int bx = random.nextInt(60), by = random.nextInt(60), bw = 1 + random.nextInt(30), bh = 1 + random.nextInt(30);
+            assertEquals(Aabb.intersects(ax, ay, aw, ah, bx, by, bw, bh),
+                    Aabb.swept(ax, ay, aw, ah, 0, 0, bx, by, bw, bh, 0, 0));
+            // Boxes that overlap at the end of the tick always hit, however they got there
+            if (Aabb.intersects(ax, ay, aw, ah, bx, by, bw, bh)) {
+                assertTrue(Aabb.swept(ax, ay, aw, ah, random.nextInt(201) - 100, random.nextInt(201) - 100,
+                        bx, by, bw, bh, random.nextInt(201) - 100, random.nextInt(201) - 100));
+            }
+        }
+    }
+}
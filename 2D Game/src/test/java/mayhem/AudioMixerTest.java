@@ -0,0 +1,116 @@
+package mayhem;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioMixerTest {
+    private static final int FRAMES = 64;
+
+    // A sound holding one value on both channels
+    private static short[] constant(int frames, int value) {
+        short[] pcm = new short[frames * 2];
+        Arrays.fill(pcm, (short) value);
+        return pcm;
+    }
+
+    // Mix one block and return its samples
+    private static short[] mix(AudioMixer mixer) {
+        byte[] out = new byte[FRAMES * 4];
+        mixer.mix(out, 0, FRAMES);
+        short[] samples = new short[FRAMES * 2];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) ((out[2 * i] & 0xff) | (out[2 * i + 1] << 8));
+        }
+        return samples;
+    }
+
+    private static void assertEverySample(int expected, short[] samples) {
+        for (int i = 0; i < samples.length; i++) {
+            assertEquals(expected, samples[i], "sample " + i);
+        }
+    }
+
+    @Test
+    void silentWithNothingPlaying() {
+        assertEverySample(0, mix(new AudioMixer(4, FRAMES)));
+    }
+
+    @Test
+    void voicesAreSummedWithTheirGains() {
+        AudioMixer mixer = new AudioMixer(4, FRAMES);
+        int a = mixer.add(constant(1000, 1000)), b = mixer.add(constant(1000, 2000));
+        assertTrue(mixer.trigger(a, 1f));
+        assertTrue(mixer.trigger(b, 0.5f));
+        assertEverySample(2000, mix(mixer));
+        assertEquals(2, mixer.getActiveVoices());
+
+        mixer.setMasterGain(0.25f);
+        assertEverySample(500, mix(mixer));
+    }
+
+    @Test
+    void loudMixIsClippedTo16Bits() {
+        AudioMixer high = new AudioMixer(4, FRAMES);
+        int loud = high.add(constant(1000, 20000));
+        high.trigger(loud, 1f);
+        high.trigger(loud, 1f);
+        assertEverySample(Short.MAX_VALUE, mix(high));
+
+        AudioMixer low = new AudioMixer(4, FRAMES);
+        int negative = low.add(constant(1000, -20000));
+        low.trigger(negative, 1f);
+        low.trigger(negative, 0.7f);
+        assertEverySample(Short.MIN_VALUE, mix(low));
+    }
+
+    @Test
+    void finishedVoiceFallsSilentAndIsFreed() {
+        AudioMixer mixer = new AudioMixer(2, FRAMES);
+        int blip = mixer.add(constant(FRAMES / 2, 300));
+        mixer.trigger(blip, 1f);
+        short[] samples = mix(mixer);
+        assertEquals(300, samples[FRAMES - 1]);
+        assertEquals(0, samples[FRAMES]); // Past its end
+        assertEquals(0, mixer.getActiveVoices());
+        assertEverySample(0, mix(mixer));
+    }
+
+    @Test
+    void oldestVoiceIsStolenWhenAllAreBusy() {
+        AudioMixer mixer = new AudioMixer(2, FRAMES);
+        int a = mixer.add(constant(1000, 100)), b = mixer.add(constant(1000, 200)), c = mixer.add(constant(1000, 400));
+        mixer.trigger(a, 1f);
+        assertEverySample(100, mix(mixer));
+        mixer.trigger(b, 1f);
+        assertEverySample(300, mix(mixer));
+        assertEquals(0, mixer.getStolenVoices());
+
+        mixer.trigger(c, 1f);
+        assertEverySample(600, mix(mixer)); // a was cut off
+        assertEquals(1, mixer.getStolenVoices());
+        assertEquals(2, mixer.getActiveVoices());
+    }
+
+    @Test
+    void fullTriggerQueueDropsAndCounts() {
+        AudioMixer mixer = new AudioMixer(2, FRAMES); // The queue holds 16 triggers
+        int sound = mixer.add(constant(1000, 1));
+        int queued = 0;
+        while (mixer.trigger(sound, 1f)) {
+            queued++;
+        }
+        assertEquals(16, queued);
+        assertEquals(1, mixer.getDroppedTriggers());
+        assertFalse(mixer.trigger(sound, 1f));
+        assertEquals(2, mixer.getDroppedTriggers());
+
+        // Mixing drains the queue, making room again
+        mix(mixer);
+        assertEquals(14, mixer.getStolenVoices());
+        assertTrue(mixer.trigger(sound, 1f));
+        assertEquals(2, mixer.getDroppedTriggers());
+    }
+}
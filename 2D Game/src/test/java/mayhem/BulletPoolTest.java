@@ -0,0 +1,96 @@
+package mayhem;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulletPoolTest {
+    private static final int QUARTER = BulletPool.SUBPIXEL / 4;
+
+    @Test
+    void slowBulletMovesOneWholePixelEveryFewTicks() {
+        BulletPool pool = new BulletPool(4);
+        int i = pool.fire(100, 50, QUARTER, -QUARTER, 0);
+        assertEquals(0, pool.getVx(i)); // A quarter pixel rounds to nothing for drawing
+        for (int tick = 1; tick <= 8; tick++) {
+            pool.move(i);
+            assertEquals(100 + tick / 4, pool.getX(i), "x after " + tick);
+            assertEquals(tick % 4 == 0 ? 1 : 0, pool.movedX(i), "moved after " + tick);
+            // Going up floors towards smaller y, so it leaves its starting pixel straight away
+            assertEquals(50 - (tick + 3) / 4, pool.getY(i), "y after " + tick);
+        }
+    }
+
+    @Test
+    void fractionsAddUpWithoutDrift() {
+        BulletPool pool = new BulletPool(4);
+        int fvx = 181, fvy = -181; // About 1/sqrt(2) px, a 45 degree shot
+        int i = pool.fire(100, 900, fvx, fvy, 0);
+        int movedX = 0, movedY = 0;
+        for (int tick = 0; tick < 1000; tick++) {
+            pool.move(i);
+            movedX += pool.movedX(i);
+            movedY += pool.movedY(i);
+        }
+        assertEquals(100 + Math.floorDiv(1000 * fvx, BulletPool.SUBPIXEL), pool.getX(i));
+        assertEquals(900 + Math.floorDiv(1000 * fvy, BulletPool.SUBPIXEL), pool.getY(i));
+        assertEquals(pool.getX(i) - 100, movedX);
+        assertEquals(pool.getY(i) - 900, movedY);
+    }
+
+    @Test
+    void drawingVelocityIsRounded() {
+        BulletPool pool = new BulletPool(4);
+        int i = pool.fire(0, 0, 200, -200, 0);
+        assertEquals(1, pool.getVx(i));
+        assertEquals(-1, pool.getVy(i));
+        int j = pool.fire(0, 0, 3 * BulletPool.SUBPIXEL, 0, 0);
+        assertEquals(3, pool.getVx(j));
+    }
+
+    @Test
+    void removeKeepsTheFixedPointStateOfTheMovedBullet() {
+        BulletPool pool = new BulletPool(4);
+        pool.fire(0, 0, BulletPool.SUBPIXEL, 0, 0);
+        pool.fire(500, 500, QUARTER, QUARTER, 1);
+        pool.move(1);
+        pool.move(1);
+        pool.remove(0);
+
+        assertEquals(1, pool.getType(0));
+        pool.move(0);
+        pool.move(0);
+        assertEquals(501, pool.getX(0));
+        assertEquals(501, pool.getY(0));
+        assertEquals(1, pool.movedX(0));
+    }
+
+    @Test
+    void snapshotKeepsSubpixelPositions() {
+        BulletPool pool = new BulletPool(8);
+        pool.fire(10, 20, QUARTER, 3 * QUARTER, 0);
+        pool.fire(30, 40, -QUARTER, 5, 2);
+        pool.move(0);
+        pool.move(1);
+
+        ByteBuffer out = ByteBuffer.allocate(pool.snapshotSize());
+        pool.writeTo(out);
+        assertFalse(out.hasRemaining());
+        out.flip();
+        BulletPool restored = new BulletPool(8);
+        restored.readFrom(out);
+
+        assertEquals(2, restored.size());
+        for (int tick = 0; tick < 50; tick++) {
+            for (int i = 0; i < pool.size(); i++) {
+                pool.move(i);
+                restored.move(i);
+                assertEquals(pool.getX(i), restored.getX(i));
+                assertEquals(pool.getY(i), restored.getY(i));
+                assertEquals(pool.movedX(i), restored.movedX(i));
+            }
+        }
+    }
+}
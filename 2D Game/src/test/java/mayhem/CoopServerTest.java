@@ -0,0 +1,59 @@
+package mayhem;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoopServerTest {
+    private static final int WIDTH = 1920;
+
+    // A one-heart game that the first escaping alien ends
+    private static GameSimulation oneHeartGame(int height) {
+        GameSimulation simulation = new GameSimulation(WIDTH, height, WaveTable.load(), 1);
+        simulation.setStartingHearts(1);
+        simulation.setSeed(1);
+        simulation.reset();
+        return simulation;
+    }
+
+    // Tick on which an idle one-heart game on a field this high ends
+    private static long endTick(int height) {
+        GameSimulation probe = oneHeartGame(height);
+        while (!probe.isGameOver()) {
+            probe.step(0);
+        }
+        return probe.getTick();
+    }
+
+    @Test
+    void clientSeesTheGameEnd() throws Exception {
+        // A game that ends between two snapshots, had they been paced by the simulation's tick
+        int height = 1080;
+        while (endTick(height) % CoopServer.SNAPSHOT_EVERY == 0) {
+            height++;
+        }
+        long end = endTick(height);
+        GameSimulation simulation = oneHeartGame(height);
+        while (simulation.getTick() < end - 20) {
+            simulation.step(0);
+        }
+
+        try (CoopServer server = new CoopServer(0, simulation)) {
+            Thread thread = new Thread(server, "Test co-op server");
+            thread.start();
+            try (CoopClient client = CoopClient.connect("localhost", server.getPort())) {
+                long deadline = System.nanoTime() + 2_000_000_000L; // Well before the server starts a new game
+                while (!client.getSimulation().isGameOver() && System.nanoTime() < deadline) {
+                    client.poll();
+                    Thread.sleep(5);
+                }
+                assertTrue(client.getSimulation().isGameOver(), "client never saw the game end");
+                assertEquals(end, client.getSimulation().getTick());
+                assertEquals(0, client.getSimulation().getHearts());
+            } finally {
+                server.stop();
+                thread.join(2000);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package mayhem;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeltaCodecTest {
+    private final Random random = new Random(42);
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    // Encode current against baseline, decode it back and return the encoded size
+    private int roundTrip(byte[] baseline, byte[] current) {
+        ByteBuffer out = ByteBuffer.allocate(DeltaCodec.maxEncodedSize(current.length));
+        DeltaCodec.encode(ByteBuffer.wrap(baseline), baseline.length, ByteBuffer.wrap(current), current.length, out);
+        int encoded = out.position();
+        out.flip();
+
+        ByteBuffer decoded = ByteBuffer.allocate(current.length);
+        int length = DeltaCodec.decode(ByteBuffer.wrap(baseline), baseline.length, out, decoded);
+        assertEquals(current.length, length);
+        assertEquals(current.length, decoded.position());
+        assertFalse(out.hasRemaining(), "decode should consume the whole delta");
+        assertArrayEquals(current, decoded.array());
+        return encoded;
+    }
+
+    @Test
+    void emptyBaseline() {
+        roundTrip(new byte[0], randomBytes(500));
+    }
+
+    @Test
+    void identicalSnapshotIsTiny() {
+        byte[] snapshot = randomBytes(4000);
+        assertTrue(roundTrip(snapshot, snapshot.clone()) < 16);
+    }
+
+    @Test
+    void sparseChanges() {
+        byte[] baseline = randomBytes(4000);
+        byte[] current = baseline.clone();
+        for (int i = 0; i < current.length; i += 97) {
+            current[i] ^= 0x5A;
+        }
+        assertTrue(roundTrip(baseline, current) < current.length / 2);
+    }
+
+    @Test
+    void baselineLongerThanSnapshot() {
+        byte[] baseline = randomBytes(1000);
+        byte[] current = new byte[600];
+        System.arraycopy(baseline, 0, current, 0, current.length);
+        current[17] ^= 1;
+        current[599] ^= 1;
+        roundTrip(baseline, current);
+    }
+
+    @Test
+    void baselineShorterThanSnapshot() {
+        byte[] baseline = randomBytes(300);
+        byte[] current = new byte[900];
+        System.arraycopy(baseline, 0, current, 0, baseline.length);
+        current[5] ^= 1;
+        System.arraycopy(randomBytes(400), 0, current, 450, 400); // Zeros between, then new data
+        roundTrip(baseline, current);
+    }
+
+    @Test
+    void emptySnapshot() {
+        roundTrip(randomBytes(100), new byte[0]);
+    }
+
+    @Test
+    void corruptDeltaIsRejected() {
+        ByteBuffer in = ByteBuffer.allocate(16);
+        in.putInt(10);
+        DeltaCodec.putVarint(in, 8);
+        DeltaCodec.putVarint(in, 8); // Runs past the declared length
+        in.flip();
+        assertThrows(IllegalArgumentException.class,
+                () -> DeltaCodec.decode(ByteBuffer.allocate(0), 0, in, ByteBuffer.allocate(32)));
+    }
+
+    @Test
+    void runsWhoseSumOverflowsAreRejected() {
+        ByteBuffer in = ByteBuffer.allocate(16);
+        in.putInt(10);
+        DeltaCodec.putVarint(in, Integer.MAX_VALUE);
+        DeltaCodec.putVarint(in, Integer.MAX_VALUE); // The two add up to a negative int
+        in.flip();
+        assertThrows(IllegalArgumentException.class,
+                () -> DeltaCodec.decode(ByteBuffer.allocate(0), 0, in, ByteBuffer.allocate(32)));
+    }
+}
@@ -0,0 +1,122 @@
+package mayhem;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityStoreTest {
+    // Entity n has every column derived from n, so a half-moved entity is easy to spot
+    private static void add(EntityStore store, int n) {
+        store.add(n, n + 10, n + 20, n + 30, n + 40);
+    }
+
+    // Checks every column of every entity belongs to the same one and returns their ids
+    private static Set<Integer> ids(EntityStore store) {
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < store.size(); i++) {
+            int n = store.getX(i);
+            assertEquals(n + 10, store.getY(i), "y of slot " + i);
+            assertEquals(n + 20, store.getVx(i), "vx of slot " + i);
+            assertEquals(n + 30, store.getVy(i), "vy of slot " + i);
+            assertEquals(n + 40, store.getType(i), "type of slot " + i);
+            assertTrue(store.isAlive(i), "slot " + i);
+            assertTrue(ids.add(n), "entity " + n + " twice");
+        }
+        return ids;
+    }
+
+    private static EntityStore filled(int count) {
+        EntityStore store = new EntityStore(4);
+        for (int n = 0; n < count; n++) {
+            add(store, n);
+        }
+        return store;
+    }
+
+    @Test
+    void removeFromTheMiddleMovesTheLastEntityIn() {
+        EntityStore store = filled(5);
+        store.remove(1);
+        assertEquals(4, store.size());
+        assertEquals(4, store.getX(1));
+        assertEquals(Set.of(0, 2, 3, 4), ids(store));
+        assertFalse(store.alive[4], "vacated slot still alive");
+    }
+
+    @Test
+    void removeFromTheEndMovesNothing() {
+        EntityStore store = filled(5);
+        store.remove(4);
+        assertEquals(4, store.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, store.getX(i));
+        }
+        assertEquals(Set.of(0, 1, 2, 3), ids(store));
+        store.remove(0);
+        store.remove(0);
+        store.remove(0);
+        store.remove(0);
+        assertTrue(store.isEmpty());
+    }
+
+    @Test
+    void removeWhileIteratingBackwardsKeepsTheRest() {
+        EntityStore store = filled(100);
+        for (int i = store.size() - 1; i >= 0; i--) {
+            if (store.getX(i) % 3 == 0) {
+                store.remove(i);
+            }
+        }
+        Set<Integer> ids = ids(store);
+        assertEquals(66, ids.size());
+        ids.forEach(n -> assertNotEquals(0, n % 3));
+    }
+
+    @Test
+    void removeDeadKeepsOnlyTheLiving() {
+        EntityStore store = filled(50);
+        for (int i = 0; i < store.size(); i++) {
+            if (store.getX(i) % 2 == 0 || store.getX(i) == 49) {
+                store.kill(i);
+            }
+        }
+        assertEquals(50, store.size()); // Killing doesn't move anything
+        store.removeDead();
+        Set<Integer> ids = ids(store);
+        assertEquals(24, ids.size());
+        ids.forEach(n -> assertTrue(n % 2 == 1 && n != 49));
+    }
+
+    @Test
+    void growingKeepsEveryColumn() {
+        EntityStore store = filled(1000);
+        assertTrue(store.capacity() >= 1000);
+        assertEquals(1000, ids(store).size());
+        store.clear();
+        assertTrue(store.isEmpty());
+        add(store, 7);
+        assertEquals(Set.of(7), ids(store));
+    }
+
+    @Test
+    void snapshotRoundTrip() {
+        EntityStore store = filled(30);
+        store.remove(3);
+        ByteBuffer out = ByteBuffer.allocate(store.snapshotSize());
+        store.writeTo(out);
+        assertFalse(out.hasRemaining());
+        out.flip();
+
+        EntityStore restored = filled(2);
+        restored.readFrom(out);
+        assertEquals(store.size(), restored.size());
+        for (int i = 0; i < store.size(); i++) {
+            assertEquals(store.getX(i), restored.getX(i));
+        }
+        assertEquals(ids(store), ids(restored));
+    }
+}
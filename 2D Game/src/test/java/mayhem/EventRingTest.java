@@ -0,0 +1,124 @@
+package mayhem;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventRingTest {
+    // Collects the ticks of polled events
+    private static final class Ticks implements EventRing.Handler {
+        final List<Long> seen = new ArrayList<>();
+
+        @Override
+        public void onEvent(int event, int x, int y, long tick) {
+            assertEquals((int) tick % 8, event);
+            assertEquals((int) tick, x);
+            assertEquals((int) -tick, y);
+            seen.add(tick);
+        }
+    }
+
+    private static boolean publish(EventRing ring, long tick) {
+        return ring.publish((int) tick % 8, (int) tick, (int) -tick, tick);
+    }
+
+    @Test
+    void rejectsCapacityThatIsNotAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new EventRing(12));
+    }
+
+    @Test
+    void wrapsAroundManyTimesInOrder() {
+        EventRing ring = new EventRing(8);
+        EventRing.Consumer consumer = ring.consumer("test");
+        Ticks ticks = new Ticks();
+        for (long t = 0; t < 1000; t++) {
+            assertTrue(publish(ring, t));
+            if (t % 5 == 4) {
+                assertEquals(5, consumer.poll(ticks));
+            }
+        }
+        for (int i = 0; i < ticks.seen.size(); i++) {
+            assertEquals(i, ticks.seen.get(i));
+        }
+        assertEquals(1000, ticks.seen.size());
+        assertEquals(0, ring.getDropped());
+        assertEquals(5, ring.getHighWaterMark());
+    }
+
+    @Test
+    void everyConsumerSeesEveryEvent() {
+        EventRing ring = new EventRing(16);
+        EventRing.Consumer a = ring.consumer("a"), b = ring.consumer("b");
+        Ticks ticksA = new Ticks(), ticksB = new Ticks();
+        for (long t = 0; t < 10; t++) {
+            publish(ring, t);
+        }
+        a.poll(ticksA);
+        assertEquals(10, ring.depth()); // b still holds them
+        b.poll(ticksB);
+        assertEquals(0, ring.depth());
+        assertEquals(ticksA.seen, ticksB.seen);
+    }
+
+    @Test
+    void dropsAndCountsWhenAConsumerIsARingBehind() {
+        EventRing ring = new EventRing(8);
+        EventRing.Consumer consumer = ring.consumer("slow");
+        for (long t = 0; t < 11; t++) {
+            assertEquals(t < 8, publish(ring, t));
+        }
+        assertEquals(3, ring.getDropped());
+        assertEquals(8, ring.depth());
+        assertEquals(8, consumer.lag());
+
+        Ticks ticks = new Ticks();
+        assertEquals(8, consumer.poll(ticks));
+        assertEquals(7, ticks.seen.get(7)); // The oldest events survive, the newest were dropped
+        assertTrue(publish(ring, 11));
+        assertEquals(3, ring.getDropped());
+    }
+
+    @Test
+    void closedConsumerNoLongerHoldsEventsBack() {
+        EventRing ring = new EventRing(4);
+        EventRing.Consumer consumer = ring.consumer("gone");
+        for (long t = 0; t < 4; t++) {
+            publish(ring, t);
+        }
+        assertFalse(publish(ring, 4));
+        consumer.close();
+        assertTrue(publish(ring, 5));
+        assertEquals(0, ring.depth());
+    }
+
+    @Test
+    void lossyConsumerSkipsInsteadOfHoldingTheProducerBack() {
+        EventRing ring = new EventRing(8);
+        EventRing.Consumer lossless = ring.consumer("loop");
+        EventRing.Consumer lossy = ring.lossyConsumer("audio");
+        Ticks all = new Ticks(), some = new Ticks();
+        for (long t = 0; t < 20; t++) {
+            assertTrue(publish(ring, t));
+            lossless.poll(all);
+        }
+        assertEquals(0, ring.getDropped());
+        assertEquals(20, all.seen.size());
+
+        // Only the newest events that can't have been overwritten are left for the lossy one
+        assertEquals(7, lossy.poll(some));
+        assertEquals(13, lossy.getSkipped());
+        assertEquals(13, ring.getSkipped());
+        assertEquals(List.of(13L, 14L, 15L, 16L, 17L, 18L, 19L), some.seen);
+
+        // Once caught up it sees everything again
+        publish(ring, 20);
+        lossless.poll(all);
+        assertEquals(1, lossy.poll(some));
+        assertEquals(20, some.seen.get(some.seen.size() - 1));
+        assertEquals(13, lossy.getSkipped());
+    }
+}
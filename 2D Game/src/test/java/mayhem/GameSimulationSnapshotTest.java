@@ -0,0 +1,86 @@
+package mayhem;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSimulationSnapshotTest {
+    private static final int WIDTH = 1920, HEIGHT = 1080;
+
+    // Inputs for a tick: sweep left and right, firing most of the time
+    private static int inputs(long tick) {
+        int move = (tick / 90) % 2 == 0 ? GameSimulation.INPUT_LEFT : GameSimulation.INPUT_RIGHT;
+        return move | (tick % 7 != 0 ? GameSimulation.INPUT_FIRE : 0);
+    }
+
+    private static GameSimulation played(long ticks) {
+        GameSimulation simulation = new GameSimulation(WIDTH, HEIGHT);
+        simulation.setSeed(1234);
+        for (long t = 0; t < ticks; t++) {
+            simulation.step(inputs(simulation.getTick()));
+        }
+        return simulation;
+    }
+
+    private static byte[] snapshot(GameSimulation simulation) {
+        ByteBuffer out = ByteBuffer.allocate(simulation.snapshotSize());
+        simulation.writeSnapshot(out);
+        assertEquals(out.capacity(), out.position(), "snapshotSize() should match what is written");
+        return out.array();
+    }
+
+    @Test
+    void restoredSimulationHasTheSameStateAndFuture() {
+        GameSimulation original = played(2000);
+        assertTrue(original.getAliens().size() + original.getShots().size() > 0, "nothing to snapshot");
+        byte[] bytes = snapshot(original);
+
+        GameSimulation restored = new GameSimulation(WIDTH, HEIGHT);
+        restored.readSnapshot(ByteBuffer.wrap(bytes));
+        assertEquals(original.checksum(), restored.checksum());
+        assertArrayEquals(bytes, snapshot(restored));
+
+        for (int t = 0; t < 3000 && !original.isGameOver(); t++) {
+            int in = inputs(original.getTick());
+            original.step(in);
+            restored.step(in);
+            assertEquals(original.checksum(), restored.checksum(), "diverged at tick " + original.getTick());
+        }
+        assertEquals(original.getScore(), restored.getScore());
+    }
+
+    @Test
+    void snapshotOverwritesAnEarlierState() {
+        GameSimulation later = played(1500);
+        byte[] early = snapshot(played(300));
+        long earlyChecksum = played(300).checksum();
+
+        later.readSnapshot(ByteBuffer.wrap(early));
+        assertEquals(earlyChecksum, later.checksum());
+        assertArrayEquals(early, snapshot(later));
+    }
+
+    @Test
+    void checksumTracksState() {
+        assertEquals(played(500).checksum(), played(500).checksum());
+        assertNotEquals(played(500).checksum(), played(501).checksum());
+    }
+
+    @Test
+    void rejectsSnapshotOfAnotherFieldSize() {
+        byte[] bytes = snapshot(played(100));
+        GameSimulation other = new GameSimulation(1280, 720);
+        assertThrows(IllegalArgumentException.class, () -> other.readSnapshot(ByteBuffer.wrap(bytes)));
+    }
+
+    @Test
+    void rejectsSomethingThatIsNotASnapshot() {
+        byte[] bytes = snapshot(played(100));
+        Arrays.fill(bytes, 0, 4, (byte) 0);
+        GameSimulation other = new GameSimulation(WIDTH, HEIGHT);
+        assertThrows(IllegalArgumentException.class, () -> other.readSnapshot(ByteBuffer.wrap(bytes)));
+    }
+}
@@ -0,0 +1,70 @@
+package mayhem;
+
+import org.junit.jupiter.api.Test;
+
+import static mayhem.GameSimulation.INPUT_FIRE;
+import static mayhem.GameSimulation.INPUT_LEFT;
+import static mayhem.GameSimulation.INPUT_RIGHT;
+import static org.junit.jupiter.api.Assertions.*;
+
+class InputBufferTest {
+    @Test
+    void tapBetweenTwoTicksCountsForOneTick() {
+        InputBuffer input = new InputBuffer(16);
+        input.press(INPUT_FIRE);
+        input.release(INPUT_FIRE);
+        assertEquals(INPUT_FIRE, input.sample());
+        assertEquals(0, input.getHeld());
+        assertEquals(0, input.sample());
+    }
+
+    @Test
+    void pressHeldAcrossTicks() {
+        InputBuffer input = new InputBuffer(16);
+        input.press(INPUT_LEFT);
+        assertEquals(INPUT_LEFT, input.sample());
+        assertEquals(INPUT_LEFT, input.sample());
+        input.press(INPUT_FIRE);
+        assertEquals(INPUT_LEFT | INPUT_FIRE, input.sample());
+        input.release(INPUT_LEFT);
+        assertEquals(INPUT_FIRE, input.sample());
+        input.release(INPUT_FIRE);
+        assertEquals(0, input.sample());
+    }
+
+    @Test
+    void releaseAllDropsQueuedTransitions() {
+        InputBuffer input = new InputBuffer(16);
+        input.press(INPUT_RIGHT);
+        assertEquals(INPUT_RIGHT, input.sample());
+        input.press(INPUT_FIRE);
+        input.release(INPUT_FIRE);
+        input.press(INPUT_LEFT);
+        input.releaseAll();
+        assertEquals(0, input.sample());
+        assertEquals(0, input.getHeld());
+    }
+
+    @Test
+    void transitionsAfterReleaseAllStillCount() {
+        InputBuffer input = new InputBuffer(16);
+        input.press(INPUT_LEFT);
+        input.releaseAll();
+        input.press(INPUT_FIRE);
+        assertEquals(INPUT_FIRE, input.sample());
+        assertEquals(INPUT_FIRE, input.sample());
+    }
+
+    @Test
+    void fullBufferDropsAndCounts() {
+        InputBuffer input = new InputBuffer(4);
+        for (int i = 0; i < 6; i++) {
+            input.press(INPUT_LEFT);
+        }
+        assertEquals(2, input.getOverflows());
+        assertEquals(INPUT_LEFT, input.sample());
+        input.release(INPUT_LEFT); // Room again once sampled
+        assertEquals(0, input.sample());
+        assertEquals(2, input.getOverflows());
+    }
+}
@@ -0,0 +1,94 @@
+package mayhem;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayTest {
+    private static final int CHECKPOINT_EVERY = 60;
+    private static final int TICKS = 20_000;
+    // Header offset of the starting hearts, after magic, version, seed, size, waves, cooldown and endless
+    private static final int HEARTS_OFFSET = 4 + 2 + 8 + 4 + 4 + 8 + 4 + 1;
+
+    @TempDir
+    Path dir;
+
+    private GameSimulation recorded;
+    private int resets;
+
+    // Record a seeded bot session, restarting after every game like HeadlessSoak
+    private Path record(int hearts, int players) throws IOException {
+        Path file = dir.resolve("game.replay");
+        recorded = new GameSimulation(1920, 1080, WaveTable.load(), players);
+        recorded.setStartingHearts(hearts);
+        recorded.reset();
+        recorded.setSeed(42);
+        try (ReplayRecorder recorder = new ReplayRecorder(file, recorded, 42, CHECKPOINT_EVERY)) {
+            for (int t = 0; t < TICKS; t++) {
+                int inputs = HeadlessSoak.botInputs(recorded);
+                recorded.step(inputs);
+                recorder.recordStep(inputs);
+                if (recorded.isGameOver()) {
+                    recorded.reset();
+                    recorder.recordReset();
+                    resets++;
+                }
+            }
+        }
+        return file;
+    }
+
+    private static void writeInt(Path file, long offset, int value) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(offset);
+            raf.write(new byte[]{(byte) value, (byte) (value >> 8), (byte) (value >> 16), (byte) (value >> 24)});
+        }
+    }
+
+    @Test
+    void playbackMatchesEveryCheckpoint() throws Exception {
+        Path file = record(2, 1);
+        assertTrue(resets > 0, "no game finished, so resets aren't covered");
+
+        ReplayPlayer player = new ReplayPlayer(file);
+        assertEquals(2, player.getSimulation().getStartingHearts());
+        assertTrue(player.play(), "diverged at tick " + player.getDivergedAt());
+        assertTrue(player.isComplete());
+        assertEquals(TICKS, player.getTicks());
+        assertEquals(TICKS / CHECKPOINT_EVERY, player.getCheckpoints());
+        assertEquals(recorded.checksum(), player.getSimulation().checksum());
+        assertEquals(recorded.getScore(), player.getSimulation().getScore());
+    }
+
+    @Test
+    void coopReplayKeepsItsPlayers() throws Exception {
+        ReplayPlayer player = new ReplayPlayer(record(3, 2));
+        assertEquals(2, player.getSimulation().getPlayers());
+        assertEquals(3, player.getSimulation().getHearts());
+        assertTrue(player.play(), "diverged at tick " + player.getDivergedAt());
+        assertEquals(recorded.checksum(), player.getSimulation().checksum());
+    }
+
+    @Test
+    void wrongStartingHeartsDiverge() throws Exception {
+        Path file = record(2, 1);
+        writeInt(file, HEARTS_OFFSET, 3);
+        ReplayPlayer player = new ReplayPlayer(file);
+        assertFalse(player.play());
+        assertEquals(CHECKPOINT_EVERY, player.getDivergedAt());
+    }
+
+    @Test
+    void badHeaderIsRejected() throws Exception {
+        Path file = record(2, 1);
+        writeInt(file, HEARTS_OFFSET + 4, 0); // No players
+        assertThrows(IOException.class, () -> new ReplayPlayer(file));
+        writeInt(file, 0, 0);
+        assertThrows(IOException.class, () -> new ReplayPlayer(file));
+    }
+}
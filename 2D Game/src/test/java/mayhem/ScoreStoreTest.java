@@ -0,0 +1,114 @@
+package mayhem;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreStoreTest {
+    @TempDir
+    Path dir;
+
+    // Write games with the given scores to a new log and close it
+    private Path log(int... scores) throws InterruptedException {
+        Path file = dir.resolve("scores.log");
+        try (ScoreStore store = ScoreStore.open(file)) {
+            store.awaitLoaded();
+            for (int i = 0; i < scores.length; i++) {
+                assertTrue(store.submit(i, scores[i], 1, 100, false));
+            }
+        }
+        return file;
+    }
+
+    private static ScoreStore.Top reopen(Path file) throws InterruptedException {
+        try (ScoreStore store = ScoreStore.open(file)) {
+            store.awaitLoaded();
+            assertNull(store.getFailure());
+            return store.top();
+        }
+    }
+
+    private static long recordOffset(int i) {
+        return ScoreStore.HEADER_BYTES + (long) i * ScoreStore.RECORD_BYTES;
+    }
+
+    private static void flipByte(Path file, long offset) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(offset);
+            int b = raf.read();
+            raf.seek(offset);
+            raf.write(b ^ 0xFF);
+        }
+    }
+
+    @Test
+    void keepsGamesAcrossRunsBestFirst() throws Exception {
+        ScoreStore.Top top = reopen(log(300, 100, 500, 200));
+        assertEquals(4, top.size());
+        assertEquals(500, top.score(0));
+        assertEquals(300, top.score(1));
+        assertEquals(200, top.score(2));
+        assertEquals(100, top.score(3));
+    }
+
+    @Test
+    void tornTailIsTruncated() throws Exception {
+        Path file = log(10, 20, 30);
+        Files.write(file, new byte[ScoreStore.RECORD_BYTES / 2], StandardOpenOption.APPEND);
+
+        assertEquals(3, reopen(file).size());
+        assertEquals(recordOffset(3), Files.size(file));
+
+        // New games follow the last intact record
+        try (ScoreStore store = ScoreStore.open(file)) {
+            store.awaitLoaded();
+            store.submit(9, 40, 2, 100, true);
+        }
+        ScoreStore.Top top = reopen(file);
+        assertEquals(4, top.size());
+        assertEquals(40, top.score(0));
+        assertTrue(top.won(0));
+    }
+
+    @Test
+    void corruptLastRecordIsTruncated() throws Exception {
+        Path file = log(10, 20, 30);
+        flipByte(file, recordOffset(2) + 9); // Inside the score
+
+        ScoreStore.Top top = reopen(file);
+        assertEquals(2, top.size());
+        assertEquals(20, top.score(0));
+        assertEquals(recordOffset(2), Files.size(file));
+    }
+
+    @Test
+    void corruptRecordInTheMiddleIsSkipped() throws Exception {
+        Path file = log(10, 20, 30);
+        flipByte(file, recordOffset(1) + ScoreStore.RECORD_BYTES - 1); // Inside the CRC
+
+        ScoreStore.Top top = reopen(file);
+        assertEquals(2, top.size());
+        assertEquals(30, top.score(0));
+        assertEquals(10, top.score(1));
+        assertEquals(recordOffset(3), Files.size(file)); // Good records after it are kept
+    }
+
+    @Test
+    void rejectsAFileThatIsNotALog() throws Exception {
+        Path file = dir.resolve("other.txt");
+        Files.writeString(file, "not a score log at all");
+        try (ScoreStore store = ScoreStore.open(file)) {
+            store.awaitLoaded();
+            assertNotNull(store.getFailure());
+            assertEquals(0, store.top().size());
+        }
+        assertEquals("not a score log at all", Files.readString(file));
+    }
+}
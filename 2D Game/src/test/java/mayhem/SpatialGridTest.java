@@ -0,0 +1,84 @@
+package mayhem;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpatialGridTest {
+    private static final int SIZE = 1000, CELL = 100;
+
+    // Query and return the hits, failing on any entity returned twice
+    private static Set<Integer> query(SpatialGrid grid, int x, int y, int w, int h) {
+        Set<Integer> hits = new HashSet<>();
+        int n = grid.query(x, y, w, h);
+        for (int k = 0; k < n; k++) {
+            assertTrue(hits.add(grid.result(k)), "entity " + grid.result(k) + " returned twice");
+        }
+        return hits;
+    }
+
+    @Test
+    void entitySpanningCellsIsFoundFromEachAndOnlyOnce() {
+        EntityStore store = new EntityStore(4);
+        store.add(50, 50, 0, 0, 0); // Covers cells 0-2 in both directions
+        store.add(750, 750, 0, 0, 0);
+        SpatialGrid grid = new SpatialGrid(SIZE, SIZE, CELL);
+        grid.build(store, 250, 250);
+
+        assertEquals(Set.of(0), query(grid, 0, 0, 10, 10));
+        assertEquals(Set.of(0), query(grid, 280, 280, 10, 10));
+        assertEquals(Set.of(), query(grid, 320, 320, 10, 10));
+        assertEquals(Set.of(0, 1), query(grid, 0, 0, SIZE, SIZE)); // Every cell, each entity once
+    }
+
+    @Test
+    void entitiesOutsideTheFieldGoToTheEdgeCells() {
+        EntityStore store = new EntityStore(4);
+        store.add(-500, -300, 0, 0, 0);
+        store.add(5000, 5000, 0, 0, 0);
+        store.add(450, -2000, 0, 0, 0);
+        SpatialGrid grid = new SpatialGrid(SIZE, SIZE, CELL);
+        grid.build(store, 20, 20);
+
+        assertEquals(Set.of(0), query(grid, 0, 0, 10, 10));
+        assertEquals(Set.of(0), query(grid, -1000, -1000, 10, 10));
+        assertEquals(Set.of(1), query(grid, 990, 990, 10, 10));
+        assertEquals(Set.of(1), query(grid, 4000, 9000, 10, 10));
+        assertEquals(Set.of(2), query(grid, 400, 0, 10, 10));
+        assertEquals(Set.of(), query(grid, 500, 500, 10, 10));
+    }
+
+    @Test
+    void reusedAcrossTicksFindsEveryOverlapOnce() {
+        Random random = new Random(3);
+        SpatialGrid grid = new SpatialGrid(SIZE, SIZE, CELL);
+        EntityStore store = new EntityStore(16);
+        int w = 60, h = 40;
+        for (int tick = 0; tick < 50; tick++) {
+            // The store grows and shrinks between ticks, past the grid's initial sizes
+            store.clear();
+            int n = random.nextInt(600);
+            for (int i = 0; i < n; i++) {
+                store.add(random.nextInt(SIZE + 200) - 100, random.nextInt(SIZE + 200) - 100, 0, 0, 0);
+            }
+            grid.build(store, w, h);
+
+            for (int q = 0; q < 40; q++) {
+                int qx = random.nextInt(SIZE), qy = random.nextInt(SIZE), qw = 1 + random.nextInt(300), qh = 1 + random.nextInt(300);
+                Set<Integer> hits = query(grid, qx, qy, qw, qh);
+                for (int i = 0; i < n; i++) {
+                    if (Aabb.intersects(qx, qy, qw, qh, store.getX(i), store.getY(i), w, h)) {
+                        assertTrue(hits.contains(i), "missed entity " + i + " on tick " + tick);
+                    }
+                }
+                for (int i : hits) {
+                    assertTrue(i < n, "stale entity " + i + " from an earlier tick");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package mayhem;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SwarmTest {
+    // Several chunks of aliens, stacked high enough that they keep escaping for a while
+    private static final WaveTable SWARM = WaveTable.parse(
+            "budget 5000\n"
+            + "level\n"
+            + "wave at=0 formation=grid count=30000 columns=180 spacing=10 speed=3 y=50 margin=10\n");
+
+    private static GameSimulation swarm() {
+        GameSimulation simulation = new GameSimulation(1920, 1080, SWARM, 1);
+        simulation.setStartingHearts(1_000_000);
+        simulation.setSeed(99);
+        simulation.reset();
+        return simulation;
+    }
+
+    @Test
+    void parallelMovesMatchTheSingleThreadedLoop() {
+        GameSimulation single = swarm(), parallel = swarm();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            parallel.setSwarmPool(pool);
+            int mostAliens = 0;
+            for (int t = 0; t < 600; t++) {
+                int inputs = ((t / 60) % 2 == 0 ? GameSimulation.INPUT_LEFT : GameSimulation.INPUT_RIGHT)
+                        | GameSimulation.INPUT_FIRE;
+                single.step(inputs);
+                parallel.step(inputs);
+                assertEquals(single.checksum(), parallel.checksum(), "diverged at tick " + single.getTick());
+                mostAliens = Math.max(mostAliens, single.getAliens().size());
+            }
+            assertTrue(mostAliens > 2 * SwarmMover.CHUNK, "too few aliens to split");
+            assertTrue(single.getAliens().size() > SwarmMover.CHUNK, "swarm over too soon");
+            assertTrue(single.getHearts() < 1_000_000, "no alien escaped");
+            assertEquals(single.getHearts(), parallel.getHearts());
+            assertEquals(single.getScore(), parallel.getScore());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
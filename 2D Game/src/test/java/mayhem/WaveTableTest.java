@@ -0,0 +1,93 @@
+package mayhem;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WaveTableTest {
+    private static String parseError(String text) {
+        return assertThrows(IllegalArgumentException.class, () -> WaveTable.parse(text)).getMessage();
+    }
+
+    @Test
+    void builtInTableParses() {
+        WaveTable table = WaveTable.load();
+        assertEquals(5, table.levels());
+        int row = table.row(5);
+        int hits = 0;
+        for (int phase = table.levelFirstPhase[row]; phase < table.levelPhaseEnd[row]; phase++) {
+            hits += table.phaseHits(phase, 0);
+        }
+        assertEquals(30, hits);
+    }
+
+    @Test
+    void unknownOptionIsRejected() {
+        String message = parseError("level\nwave count=3 speeed=2\n");
+        assertTrue(message.startsWith("waves:2: unknown wave option speeed"), message);
+        assertTrue(parseError("level\nmothership at=0\nphase hits=5 bulets=3\n").contains("bulets"));
+        assertTrue(parseError("level extra=1\n").contains("unknown level option extra"));
+        assertTrue(parseError("level\nwave count\n").contains("expected key=value"));
+    }
+
+    @Test
+    void phaseNeedsAMothershipFirst() {
+        assertEquals("waves:2: phase before mothership", parseError("level\nphase hits=5\nmothership at=0\n"));
+        assertEquals("waves:1: phase before the first level", parseError("phase hits=5\n"));
+        assertEquals("waves: level 1 has a mothership with no phases", parseError("level\nmothership at=0\n"));
+    }
+
+    @Test
+    void badValuesAreRejected() {
+        assertTrue(parseError("level\nwave count=0\n").contains("count must be positive"));
+        assertTrue(parseError("level\nwave formation=circle\n").contains("unknown formation circle"));
+        assertTrue(parseError("# nothing but a comment\n").contains("no levels defined"));
+    }
+
+    @Test
+    void bigWaveIsSpreadOverTheSpawnBudget() {
+        WaveTable table = WaveTable.parse("budget 100\nlevel\nwave count=350 speed=1 y=500\n");
+        GameSimulation simulation = new GameSimulation(1920, 1080, table);
+        int[] expected = {100, 200, 300, 350, 350};
+        for (int t = 0; t < expected.length; t++) {
+            assertEquals(expected[t], simulation.getAliens().size(), "aliens after " + t + " ticks");
+            assertEquals(expected[t] == 350, simulation.isLevelSpawned());
+            simulation.step(0);
+        }
+        // Late aliens start further down, so the row stays straight
+        EntityStore aliens = simulation.getAliens();
+        for (int i = 0; i < aliens.size(); i++) {
+            assertEquals(500 + expected.length, aliens.getY(i));
+        }
+    }
+
+    @Test
+    void endlessRepetitionsScaleUp() {
+        WaveTable table = WaveTable.parse("endless count=50 speed=100 hits=20\n"
+                + "level\nwave count=10 speed=2\n"
+                + "level\nwave count=3 speed=3\nmothership at=0\nphase hits=10 speed=1\n");
+        assertEquals(2, table.levels());
+        assertEquals(0, table.repetition(2));
+        assertEquals(1, table.repetition(3));
+        assertEquals(0, table.row(3));
+        assertEquals(2, table.repetition(6));
+        assertEquals(1, table.row(6));
+
+        assertEquals(10, table.waveCount(0, 0));
+        assertEquals(15, table.waveCount(0, 1));
+        assertEquals(20, table.waveCount(0, 2));
+        assertEquals(5, table.waveCount(1, 1)); // 4.5 rounds up
+        assertEquals(4, table.waveSpeed(0, 1));
+        assertEquals(9, table.waveSpeed(1, 2));
+        assertEquals(12, table.phaseHits(0, 1));
+        assertEquals(14, table.phaseHits(0, 2));
+        assertEquals(3, table.phaseSpeed(0, 2));
+    }
+
+    @Test
+    void withoutEndlessRepetitionsStayTheSame() {
+        WaveTable table = WaveTable.parse("level\nwave count=7 speed=2\n");
+        assertEquals(7, table.waveCount(0, 5));
+        assertEquals(2, table.waveSpeed(0, 5));
+    }
+}
@@ -0,0 +1,41 @@
+package mayhem.bench;
+
+import mayhem.GameSimulation;
+import mayhem.WaveTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Whole ticks of a mothership spiral firing a volley every tick, once as many bullets leave
+// the field as are fired: moving them in fixed point and sweeping each against the jet.
+// The jet can't lose, so the population holds steady.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BulletBenchmark {
+    @Param({"4", "16"})
+    public int bullets; // Per volley
+
+    private GameSimulation simulation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        WaveTable waves = WaveTable.parse("level\nmothership at=0\nphase hits=1000000 speed=2 every=1 pattern=spiral bullets="
+                + bullets + " turn=7 shotSpeed=3\n");
+        simulation = new GameSimulation(1920, 1080, waves);
+        simulation.setStartingHearts(Integer.MAX_VALUE);
+        simulation.reset();
+        for (int i = 0; i < 1000; i++) {
+            simulation.step(0);
+        }
+    }
+
+    @Benchmark
+    public int step() {
+        simulation.step(0);
+        return simulation.getMothershipShots().size();
+    }
+}
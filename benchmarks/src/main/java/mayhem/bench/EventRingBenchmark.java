@@ -0,0 +1,43 @@
+package mayhem.bench;
+
+import mayhem.EventRing;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Publishing a tick's worth of simulation events into the event ring and draining them on
+// one consumer, as the game loop does after every step. The other readers run on their
+// own threads and only matter to the producer when the ring fills. Run with -prof gc to
+// check neither side allocates.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventRingBenchmark {
+    @Param({"1", "16", "256"})
+    public int eventsPerTick;
+
+    private EventRing ring;
+    private EventRing.Consumer consumer;
+    private EventRing.Handler handler;
+    private long tick = 0;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        ring = new EventRing(4096);
+        consumer = ring.consumer("bench");
+        handler = (event, x, y, t) -> blackhole.consume(x);
+    }
+
+    @Benchmark
+    public int publishAndPoll() {
+        tick++;
+        for (int i = 0; i < eventsPerTick; i++) {
+            ring.publish(i & 7, i, i, tick);
+        }
+        return consumer.poll(handler);
+    }
+}
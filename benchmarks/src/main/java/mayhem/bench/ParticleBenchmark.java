@@ -0,0 +1,63 @@
+package mayhem.bench;
+
+import mayhem.ParticleSystem;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+// One tick of particle movement, and drawing them all into an offscreen 1080p image,
+// with the system held at a steady particle count by re-emitting what expires.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ParticleBenchmark {
+    private static final int WIDTH = 1920, HEIGHT = 1080;
+
+    @Param({"1000", "10000", "30000"})
+    public int particles;
+
+    private ParticleSystem system;
+    private BufferedImage frame;
+    private Graphics2D g;
+    private int burst = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        system = new ParticleSystem(particles);
+        frame = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        g = frame.createGraphics();
+        refill();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+    }
+
+    // Explosions all over the field until the system is full
+    private void refill() {
+        while (system.size() < system.capacity()) {
+            burst++;
+            system.burst(burst % 2, (burst * 397) % WIDTH, (burst * 211) % HEIGHT,
+                    Math.min(100, system.capacity() - system.size()), 8, 400);
+        }
+    }
+
+    @Benchmark
+    public int update() {
+        system.update();
+        refill();
+        return system.size();
+    }
+
+    @Benchmark
+    public int render() {
+        system.render(g, 0.5f);
+        return system.size();
+    }
+}
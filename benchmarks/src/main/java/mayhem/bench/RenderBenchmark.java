@@ -0,0 +1,82 @@
+package mayhem.bench;
+
+import mayhem.Animation;
+import mayhem.GameSimulation;
+import mayhem.PlayfieldRenderer;
+import mayhem.SpriteCache;
+import mayhem.WaveTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+// The play field of a frame of gameplay (background, jet, aliens and shots) rendered into an
+// offscreen 1080p image through the sprite cache. Only the renderer is built, against a bare
+// simulation, so no window, audio, score log or asset threads are involved, and the HUD,
+// particles and the upscale to the window aren't part of the time.
+// Run from the "2D Game" directory so the images are found.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class RenderBenchmark {
+    private static final int WIDTH = 1920, HEIGHT = 1080;
+
+    @Param({"10", "100", "1000"})
+    public int entities;
+
+    private GameSimulation simulation;
+    private PlayfieldRenderer renderer;
+    private BufferedImage frame;
+    private Graphics2D g;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (!new File("gifs").isDirectory()) {
+            throw new IllegalStateException("Run the benchmarks from the '2D Game' directory");
+        }
+        renderer = new PlayfieldRenderer(new SpriteCache(), WIDTH, HEIGHT, RenderBenchmark::read);
+
+        // Spread the entities over the play field; overlap doesn't matter for fill cost
+        simulation = new GameSimulation(WIDTH, HEIGHT, WaveTable.load(), 1,
+                Math.max(entities, GameSimulation.PLAYER_SHOT_CAPACITY));
+        int spacing = 37;
+        int columns = (WIDTH - GameSimulation.ALIEN_WIDTH) / spacing;
+        simulation.getAliens().clear();
+        for (int i = 0; i < entities; i++) {
+            simulation.getAliens().add((i % columns) * spacing, (i / columns * spacing) % (HEIGHT / 2), 0, 0, GameSimulation.TYPE_ALIEN);
+            simulation.getShots().acquire((i * 7 % columns) * spacing, HEIGHT / 2 + (i / columns * spacing) % (HEIGHT / 3), 0, 0,
+                    GameSimulation.TYPE_PLAYER_SHOT);
+        }
+
+        frame = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        g = frame.createGraphics();
+    }
+
+    private static Animation read(String path) {
+        try {
+            return Animation.read(new File(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage render() {
+        renderer.drawBackground(g);
+        renderer.drawJet(g, simulation.getJetX(0), simulation.getJetY(), simulation.getTick());
+        renderer.drawEntities(g, simulation, 0.5f);
+        return frame;
+    }
+}
@@ -0,0 +1,68 @@
+package mayhem.bench;
+
+import mayhem.ScoreStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// The score log with many games in it: opening it (a full scan rebuilding the top games,
+// which the title screen waits for) and reading the top five, as the title screen does
+// every frame. The log is written once per trial through submit(), in fsynced batches.
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScoreBenchmark {
+    @Param({"100000", "1000000"})
+    public int games;
+
+    private Path file;
+    private ScoreStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        file = Files.createTempFile("scores", ".log");
+        Files.delete(file); // The store writes its own header
+        ScoreStore writer = ScoreStore.open(file);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int g = 0; g < games; g++) {
+            while (!writer.submit(g, random.nextInt(100_000), 1 + random.nextInt(5), random.nextInt(36_000), false)) {
+                Thread.onSpinWait(); // Writer is a batch behind
+            }
+        }
+        writer.close();
+        store = ScoreStore.open(file);
+        store.awaitLoaded();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int open() throws InterruptedException {
+        store.close(); // Give up the lock for the next store
+        store = ScoreStore.open(file);
+        store.awaitLoaded();
+        return store.top().size();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int topFive() {
+        ScoreStore.Top top = store.top();
+        int sum = 0;
+        for (int i = 0; i < 5; i++) {
+            sum += top.score(i);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,75 @@
+package mayhem.bench;
+
+import mayhem.EntityStore;
+import mayhem.GameSimulation;
+import mayhem.WaveTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Per-tick simulation phases at several entity counts.
+// Entities are placed with zero velocity and never overlap, so the population stays the
+// same from one invocation to the next and every call does the same amount of work.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulationBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int entities;
+
+    private GameSimulation simulation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        simulation = populate(entities, entities);
+    }
+
+    @Benchmark
+    public int updateAliens() {
+        simulation.updateAliens();
+        return simulation.getAliens().size();
+    }
+
+    @Benchmark
+    public int updateShots() {
+        simulation.updateShots();
+        return simulation.getShots().size();
+    }
+
+    @Benchmark
+    public int checkCollisions() {
+        simulation.checkCollisions();
+        return simulation.getScore();
+    }
+
+    // Aliens on a 130 px lattice, with one shot in the 30 px gap to the right of each:
+    // shots and aliens share grid cells (so the broad phase has real candidates) but never hit.
+    // The shot pool is sized to hold them all, beyond the game's own PLAYER_SHOT_CAPACITY.
+    static GameSimulation populate(int aliens, int shots) {
+        int spacing = GameSimulation.ALIEN_WIDTH + 30;
+        int columns = (int) Math.ceil(Math.sqrt(Math.max(aliens, shots)));
+        int rows = (Math.max(aliens, shots) + columns - 1) / columns;
+        GameSimulation simulation = new GameSimulation(columns * spacing, rows * spacing + GameSimulation.JET_HEIGHT + 100,
+                WaveTable.load(), 1, Math.max(shots, GameSimulation.PLAYER_SHOT_CAPACITY));
+        fill(simulation, aliens, shots, columns, spacing);
+        return simulation;
+    }
+
+    static void fill(GameSimulation simulation, int aliens, int shots, int columns, int spacing) {
+        EntityStore alienStore = simulation.getAliens();
+        alienStore.clear();
+        simulation.getShots().clear();
+        for (int i = 0; i < aliens; i++) {
+            alienStore.add((i % columns) * spacing, (i / columns) * spacing, 0, 0, GameSimulation.TYPE_ALIEN);
+        }
+        for (int i = 0; i < shots; i++) {
+            int x = (i % columns) * spacing + GameSimulation.ALIEN_WIDTH + 5;
+            if (simulation.getShots().acquire(x, (i / columns) * spacing, 0, 0, GameSimulation.TYPE_PLAYER_SHOT) < 0) {
+                throw new IllegalStateException("Shot pool too small for " + shots + " shots");
+            }
+        }
+    }
+}
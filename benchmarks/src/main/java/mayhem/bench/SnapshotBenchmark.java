@@ -0,0 +1,54 @@
+package mayhem.bench;
+
+import mayhem.GameSimulation;
+import mayhem.SnapshotRing;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// Full-state snapshots at several entity counts (that many aliens and as many shots):
+// writing into a reused buffer, restoring from it, and recording into a ring as the game
+// does every tick.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SnapshotBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int entities;
+
+    private GameSimulation simulation;
+    private ByteBuffer buffer;
+    private SnapshotRing ring;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        simulation = SimulationBenchmark.populate(entities, entities);
+        buffer = ByteBuffer.allocateDirect(simulation.snapshotSize());
+        simulation.writeSnapshot(buffer);
+        ring = new SnapshotRing(GameSimulation.TICKS_PER_SECOND * 10);
+    }
+
+    @Benchmark
+    public int write() {
+        buffer.clear();
+        simulation.writeSnapshot(buffer);
+        return buffer.position();
+    }
+
+    @Benchmark
+    public int read() {
+        buffer.flip();
+        simulation.readSnapshot(buffer);
+        return simulation.getAliens().size();
+    }
+
+    @Benchmark
+    public int recordInRing() {
+        ring.record(simulation);
+        return ring.size();
+    }
+}
@@ -0,0 +1,40 @@
+package mayhem.bench;
+
+import mayhem.GameSimulation;
+import mayhem.WaveTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Starting a level with one large grid wave, with the default per-tick spawn budget and
+// with the whole wave spawned in one tick (budget 0)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpawnBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int entities;
+
+    @Param({"32", "0"})
+    public int budget;
+
+    private GameSimulation simulation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        WaveTable waves = WaveTable.parse("budget " + budget + "\n"
+                + "level\n"
+                + "wave at=0 formation=grid count=" + entities + " columns=14 spacing=130 speed=2 y=50 margin=50\n");
+        simulation = new GameSimulation(1920, 1080, waves);
+    }
+
+    // Cost of the first tick of the level, the one that would stall a frame
+    @Benchmark
+    public int startLevel() {
+        simulation.startLevel(1);
+        return simulation.getAliens().size();
+    }
+}
@@ -0,0 +1,48 @@
+package mayhem.bench;
+
+import mayhem.GameSimulation;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Alien movement in swarm mode against the number of worker threads; 0 is the
+// single-threaded loop. Run with -p threads=... to match the machine's core count.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SwarmBenchmark {
+    @Param({"100000", "1000000"})
+    public int entities;
+
+    @Param({"0", "1", "2", "4", "8"})
+    public int threads;
+
+    private GameSimulation simulation;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        simulation = SimulationBenchmark.populate(entities, 0);
+        if (threads > 0) {
+            pool = new ForkJoinPool(threads);
+            simulation.setSwarmPool(pool);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public int updateAliens() {
+        simulation.updateAliens();
+        return simulation.getAliens().size();
+    }
+}